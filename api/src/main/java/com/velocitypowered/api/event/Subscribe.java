@@ -7,6 +7,11 @@ import java.lang.annotation.Target;
 
 /**
  * An annotation that indicates that this method can be used to listen for an event from the proxy.
+ *
+ * <p>Listener methods take the event as their only parameter and may return either {@code void} or a
+ * {@link java.util.concurrent.CompletionStage}. A listener that needs to wait for something, such as a database
+ * query, should return a stage that completes once it is done instead of blocking: the proxy will not pass the event
+ * to later listeners until the stage completes, but no thread is held while it waits.</p>
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
@@ -19,4 +24,15 @@ public @interface Subscribe {
      */
     PostOrder order() default PostOrder.NORMAL;
 
+    /**
+     * Whether this listener may block the thread it is called on. Listeners that only do quick, in-memory work should
+     * set this to {@code false}: when every listener for an event is non-blocking, the proxy calls them directly on
+     * the thread that fired the event, which is often a network thread, instead of handing the event over to another
+     * thread first. A non-blocking listener must never wait on I/O or locks; it should return a
+     * {@link java.util.concurrent.CompletionStage} instead.
+     *
+     * @return whether this listener may block
+     */
+    boolean blocking() default true;
+
 }
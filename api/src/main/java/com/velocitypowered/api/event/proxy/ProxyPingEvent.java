@@ -5,11 +5,14 @@ import com.velocitypowered.api.proxy.InboundConnection;
 import com.velocitypowered.api.proxy.server.ServerPing;
 
 /**
- * This event is fired when a server list ping request is sent by a remote client.
+ * This event is fired when a server list ping request is sent by a remote client. To cope with large numbers of pings,
+ * the proxy may reuse the resulting ping for other clients for a short while without firing this event again. Listeners
+ * that customize the ping for each connection should call {@link #setCacheable(boolean)} with {@code false}.
  */
 public class ProxyPingEvent {
     private final InboundConnection connection;
     private ServerPing ping;
+    private boolean cacheable = true;
 
     public ProxyPingEvent(InboundConnection connection, ServerPing ping) {
         this.connection = Preconditions.checkNotNull(connection, "connection");
@@ -28,11 +31,29 @@ public class ProxyPingEvent {
         this.ping = Preconditions.checkNotNull(ping, "ping");
     }
 
+    /**
+     * Returns whether or not the resulting ping may be sent to other clients.
+     * @return whether or not the ping may be cached
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * Sets whether or not the resulting ping may be sent to other clients. Once any listener marks the ping as not
+     * cacheable, it stays that way.
+     * @param cacheable whether or not the ping may be cached
+     */
+    public void setCacheable(boolean cacheable) {
+        this.cacheable = this.cacheable && cacheable;
+    }
+
     @Override
     public String toString() {
         return "ProxyPingEvent{" +
                 "connection=" + connection +
                 ", ping=" + ping +
+                ", cacheable=" + cacheable +
                 '}';
     }
 }
@@ -7,6 +7,9 @@ import com.velocitypowered.api.plugin.PluginManager;
 import com.velocitypowered.api.proxy.messages.ChannelRegistrar;
 import com.velocitypowered.api.scheduler.Scheduler;
 import com.velocitypowered.api.proxy.server.ServerInfo;
+import com.velocitypowered.api.util.MessagePosition;
+import net.kyori.text.Component;
+import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Collection;
 import java.util.Optional;
@@ -43,6 +46,37 @@ public interface ProxyServer {
      */
     int getPlayerCount();
 
+    /**
+     * Sends a chat message to all the specified players. This is considerably cheaper than calling
+     * {@link Player#sendMessage(Component)} for each player, as the message is only serialized and compressed once for
+     * every protocol version and compression threshold in use.
+     * @param players the players to send the message to
+     * @param component the chat message to send
+     */
+    default void broadcast(@NonNull Collection<? extends Player> players, @NonNull Component component) {
+        broadcast(players, component, MessagePosition.CHAT);
+    }
+
+    /**
+     * Sends a chat message to all the specified players in the specified position. This is considerably cheaper than
+     * calling {@link Player#sendMessage(Component, MessagePosition)} for each player.
+     * @param players the players to send the message to
+     * @param component the chat message to send
+     * @param position the position for the message
+     */
+    void broadcast(@NonNull Collection<? extends Player> players, @NonNull Component component,
+                   @NonNull MessagePosition position);
+
+    /**
+     * Sets the tab list header and footer for all the specified players. This is considerably cheaper than calling
+     * {@link Player#setHeaderAndFooter(Component, Component)} for each player.
+     * @param players the players to update
+     * @param header the header component
+     * @param footer the footer component
+     */
+    void broadcastHeaderAndFooter(@NonNull Collection<? extends Player> players, @NonNull Component header,
+                                  @NonNull Component footer);
+
     /**
      * Retrieves a registered {@link ServerInfo} instance by its name. The search is case-insensitive.
      * @param name the name of the server
@@ -1,5 +1,7 @@
 package com.velocitypowered.api.scheduler;
 
+import com.velocitypowered.api.proxy.Player;
+
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -46,6 +48,22 @@ public interface Scheduler {
          */
         TaskBuilder clearRepeat();
 
+        /**
+         * Runs this task on the thread that handles the specified player's connection instead of a scheduler thread.
+         * Work that mostly sends packets to one player, such as updating their tab list, avoids a hand-off between
+         * threads this way. The task must not block, as doing so holds up every player served by the same thread. The
+         * task is cancelled once the player disconnects.
+         * @param player the player to run the task alongside
+         * @return this builder, for chaining
+         */
+        TaskBuilder affinity(Player player);
+
+        /**
+         * Clears the player affinity on this task, so it runs on a scheduler thread.
+         * @return this builder, for chaining
+         */
+        TaskBuilder clearAffinity();
+
         /**
          * Schedules this task for execution.
          * @return the scheduled task
@@ -0,0 +1,125 @@
+package com.velocitypowered.natives.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compares the Java compressor against the implementation it replaced, which copied every source buffer into a new
+ * array and all output through a fixed array.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JavaVelocityCompressorBenchmark {
+    @Param({"current", "copying"})
+    public String implementation;
+
+    @Param({"direct", "heap"})
+    public String buffers;
+
+    @Param({"256", "2048", "32768"})
+    public int size;
+
+    private VelocityCompressor compressor;
+    private ByteBuf source;
+    private ByteBuf compressed;
+    private ByteBuf destination;
+
+    @Setup
+    public void setup() throws DataFormatException {
+        compressor = implementation.equals("current") ? JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION)
+                : new CopyingCompressor(Deflater.DEFAULT_COMPRESSION);
+
+        Random random = new Random(1);
+        byte[] data = new byte[size];
+        random.nextBytes(data);
+        for (int i = size / 2; i < size; i++) {
+            data[i] = (byte) (i % 16);
+        }
+
+        source = allocate(size).writeBytes(data);
+        compressed = allocate(size);
+        compressor.deflate(source, compressed);
+        destination = allocate(size);
+    }
+
+    private ByteBuf allocate(int capacity) {
+        return buffers.equals("direct") ? Unpooled.directBuffer(capacity) : Unpooled.buffer(capacity);
+    }
+
+    @TearDown
+    public void tearDown() {
+        compressor.dispose();
+        source.release();
+        compressed.release();
+        destination.release();
+    }
+
+    @Benchmark
+    public ByteBuf deflate() throws DataFormatException {
+        source.readerIndex(0);
+        destination.clear();
+        compressor.deflate(source, destination);
+        return destination;
+    }
+
+    @Benchmark
+    public ByteBuf inflate() throws DataFormatException {
+        compressed.readerIndex(0);
+        destination.clear();
+        compressor.inflate(compressed, destination);
+        return destination;
+    }
+
+    private static class CopyingCompressor implements VelocityCompressor {
+        private final Deflater deflater;
+        private final Inflater inflater;
+        private final byte[] buf = new byte[ZLIB_BUFFER_SIZE];
+
+        private CopyingCompressor(int level) {
+            this.deflater = new Deflater(level);
+            this.inflater = new Inflater();
+        }
+
+        @Override
+        public void inflate(ByteBuf source, ByteBuf destination) throws DataFormatException {
+            byte[] inData = new byte[source.readableBytes()];
+            source.readBytes(inData);
+            inflater.setInput(inData);
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buf);
+                destination.writeBytes(buf, 0, read);
+            }
+            inflater.reset();
+        }
+
+        @Override
+        public void deflate(ByteBuf source, ByteBuf destination) {
+            byte[] inData = new byte[source.readableBytes()];
+            source.readBytes(inData);
+            deflater.setInput(inData);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int bytes = deflater.deflate(buf);
+                destination.writeBytes(buf, 0, bytes);
+            }
+            deflater.reset();
+        }
+
+        @Override
+        public void dispose() {
+            deflater.end();
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.velocitypowered.natives.compression;
+
+import com.velocitypowered.natives.util.Natives;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VelocityCompressorBenchmark {
+    @Param({"java", "native"})
+    public String implementation;
+
+    @Param({"256", "2048", "32768"})
+    public int size;
+
+    private VelocityCompressor compressor;
+    private ByteBuf source;
+    private ByteBuf compressed;
+    private ByteBuf destination;
+
+    @Setup
+    public void setup() throws DataFormatException {
+        if (implementation.equals("native")) {
+            compressor = Natives.compressor.get().create(Deflater.DEFAULT_COMPRESSION);
+            if (compressor instanceof JavaVelocityCompressor) {
+                compressor.dispose();
+                throw new IllegalStateException("Native compression is not available on this platform");
+            }
+        } else {
+            compressor = JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION);
+        }
+
+        // Half random, half repeated data, so the input compresses about as well as a typical packet.
+        Random random = new Random(1);
+        byte[] data = new byte[size];
+        random.nextBytes(data);
+        for (int i = size / 2; i < size; i++) {
+            data[i] = (byte) (i % 16);
+        }
+
+        source = Unpooled.directBuffer(size).writeBytes(data);
+        compressed = Unpooled.directBuffer();
+        compressor.deflate(source, compressed);
+        destination = Unpooled.directBuffer(size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        compressor.dispose();
+        source.release();
+        compressed.release();
+        destination.release();
+    }
+
+    @Benchmark
+    public ByteBuf deflate() throws DataFormatException {
+        source.readerIndex(0);
+        destination.clear();
+        compressor.deflate(source, destination);
+        return destination;
+    }
+
+    @Benchmark
+    public ByteBuf inflate() throws DataFormatException {
+        compressed.readerIndex(0);
+        destination.clear();
+        compressor.inflate(compressed, destination);
+        return destination;
+    }
+}
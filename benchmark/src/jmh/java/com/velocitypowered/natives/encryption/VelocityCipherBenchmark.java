@@ -0,0 +1,79 @@
+package com.velocitypowered.natives.encryption;
+
+import com.velocitypowered.natives.util.Natives;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VelocityCipherBenchmark {
+    @Param({"java", "native"})
+    public String implementation;
+
+    @Param({"64", "2048", "32768"})
+    public int size;
+
+    private VelocityCipher encrypt;
+    private VelocityCipher decrypt;
+    private ByteBuf source;
+    private ByteBuf destination;
+
+    @Setup
+    public void setup() throws GeneralSecurityException {
+        VelocityCipherFactory factory = JavaVelocityCipher.FACTORY;
+        if (implementation.equals("native")) {
+            factory = Natives.cipher.get();
+            if (factory == JavaVelocityCipher.FACTORY) {
+                throw new IllegalStateException("Native encryption is not available on this platform");
+            }
+        }
+
+        Random random = new Random(1);
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        SecretKeySpec secretKey = new SecretKeySpec(key, "AES");
+        encrypt = factory.forEncryption(secretKey);
+        decrypt = factory.forDecryption(secretKey);
+
+        byte[] data = new byte[size];
+        random.nextBytes(data);
+        source = Unpooled.directBuffer(size).writeBytes(data);
+        destination = Unpooled.directBuffer(size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        encrypt.dispose();
+        decrypt.dispose();
+        source.release();
+        destination.release();
+    }
+
+    @Benchmark
+    public ByteBuf encrypt() throws ShortBufferException {
+        source.readerIndex(0);
+        destination.clear();
+        encrypt.process(source, destination);
+        return destination;
+    }
+
+    @Benchmark
+    public ByteBuf decrypt() throws ShortBufferException {
+        // AES/CFB8 decrypts any input, so the random source works here too.
+        source.readerIndex(0);
+        destination.clear();
+        decrypt.process(source, destination);
+        return destination;
+    }
+}
@@ -0,0 +1,121 @@
+package com.velocitypowered.proxy.network;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays a packet from a client to a backend server through a pair of real channels, the way the proxy does. The
+ * backend connection is registered either on the player connection's event loop, as the proxy now does, or on a
+ * different one, so every relayed packet has to be handed across threads. Both are run in sample time mode, so the
+ * results include the p99 latency of a relayed packet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventLoopAffinityBenchmark {
+    @Param({"sameLoop", "crossLoop"})
+    public String backendLoop;
+
+    private EventLoop clientLoop;
+    private EventLoop playerLoop;
+    private EventLoop otherLoop;
+    private EventLoop serverLoop;
+    private Channel proxyListener;
+    private Channel serverListener;
+    private Channel client;
+    private Channel backend;
+    private ByteBuf packet;
+    private volatile CompletableFuture<Void> received;
+
+    @Setup
+    public void setup() throws Exception {
+        clientLoop = new DefaultEventLoop();
+        playerLoop = new DefaultEventLoop();
+        otherLoop = new DefaultEventLoop();
+        serverLoop = new DefaultEventLoop();
+        packet = Unpooled.directBuffer(64).writeZero(64);
+
+        LocalAddress serverAddress = new LocalAddress("affinity-server");
+        serverListener = new ServerBootstrap()
+                .group(serverLoop)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ReferenceCountUtil.release(msg);
+                        received.complete(null);
+                    }
+                })
+                .bind(serverAddress).sync().channel();
+
+        backend = new Bootstrap()
+                .group(backendLoop.equals("sameLoop") ? playerLoop : otherLoop)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(serverAddress).sync().channel();
+
+        // Accepted player connections are registered on the player loop, which the backend may or may not share.
+        LocalAddress proxyAddress = new LocalAddress("affinity-proxy");
+        proxyListener = new ServerBootstrap()
+                .group(playerLoop)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                                // Like BackendPlaySessionHandler/ClientPlaySessionHandler: write the packet straight on.
+                                backend.writeAndFlush(msg, backend.voidPromise());
+                            }
+                        });
+                    }
+                })
+                .bind(proxyAddress).sync().channel();
+
+        client = new Bootstrap()
+                .group(clientLoop)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(proxyAddress).sync().channel();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close().syncUninterruptibly();
+        backend.close().syncUninterruptibly();
+        proxyListener.close().syncUninterruptibly();
+        serverListener.close().syncUninterruptibly();
+        packet.release();
+        for (EventLoop loop : new EventLoop[] { clientLoop, playerLoop, otherLoop, serverLoop }) {
+            loop.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    @Benchmark
+    public void relay() {
+        CompletableFuture<Void> received = new CompletableFuture<>();
+        this.received = received;
+        client.writeAndFlush(packet.retainedDuplicate(), client.voidPromise());
+        received.join();
+    }
+}
@@ -0,0 +1,54 @@
+package com.velocitypowered.proxy.plugin;
+
+import com.google.common.collect.ImmutableList;
+import com.velocitypowered.api.plugin.PluginContainer;
+import com.velocitypowered.api.plugin.PluginDescription;
+import com.velocitypowered.api.plugin.PluginManager;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * A plugin manager that knows about a single plugin, {@link #PLUGIN}, for the benchmarks to register listeners with.
+ */
+class SinglePluginManager implements PluginManager {
+    static final Object PLUGIN = new Object();
+    private static final PluginContainer CONTAINER = new PluginContainer() {
+        @Override
+        public @NonNull PluginDescription getDescription() {
+            return () -> "benchmark";
+        }
+
+        @Override
+        public Optional<?> getInstance() {
+            return Optional.of(PLUGIN);
+        }
+    };
+
+    @Override
+    public @NonNull Optional<PluginContainer> fromInstance(@NonNull Object instance) {
+        return instance == PLUGIN ? Optional.of(CONTAINER) : Optional.empty();
+    }
+
+    @Override
+    public @NonNull Optional<PluginContainer> getPlugin(@NonNull String id) {
+        return id.equals("benchmark") ? Optional.of(CONTAINER) : Optional.empty();
+    }
+
+    @Override
+    public @NonNull Collection<PluginContainer> getPlugins() {
+        return ImmutableList.of(CONTAINER);
+    }
+
+    @Override
+    public boolean isLoaded(@NonNull String id) {
+        return id.equals("benchmark");
+    }
+
+    @Override
+    public void addToClasspath(@NonNull Object plugin, @NonNull Path path) {
+        // The benchmark plugin is already on the classpath.
+    }
+}
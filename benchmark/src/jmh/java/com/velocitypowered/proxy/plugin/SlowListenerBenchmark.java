@@ -0,0 +1,96 @@
+package com.velocitypowered.proxy.plugin;
+
+import com.velocitypowered.api.event.Subscribe;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a burst of logins whose events are handled by a listener that waits on I/O, such as a database lookup.
+ * The {@code blocking} listener sleeps on the event executor, which is what listeners had to do before they could
+ * return a {@link CompletableFuture}; the {@code async} listener returns a future completed by another thread once the
+ * simulated I/O is done. Scores are logins per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlowListenerBenchmark {
+    private static final int LOGINS = 256;
+
+    @Param({"blocking", "async"})
+    public String listener;
+
+    @Param({"5"})
+    public int ioMillis;
+
+    private VelocityEventManager eventManager;
+    private ScheduledExecutorService io;
+
+    @Setup
+    public void setup() {
+        eventManager = new VelocityEventManager(new SinglePluginManager());
+        io = Executors.newSingleThreadScheduledExecutor();
+        eventManager.register(SinglePluginManager.PLUGIN, listener.equals("async") ? new AsyncListener(io, ioMillis)
+                : new BlockingListener(ioMillis));
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        eventManager.shutdown();
+        io.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOGINS)
+    public void login() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[LOGINS];
+        for (int i = 0; i < LOGINS; i++) {
+            futures[i] = eventManager.fire(new LoginAttempt());
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    public static class LoginAttempt {
+        private volatile boolean allowed;
+    }
+
+    public static class BlockingListener {
+        private final int ioMillis;
+
+        BlockingListener(int ioMillis) {
+            this.ioMillis = ioMillis;
+        }
+
+        @Subscribe
+        public void onLogin(LoginAttempt event) throws InterruptedException {
+            Thread.sleep(ioMillis);
+            event.allowed = true;
+        }
+    }
+
+    public static class AsyncListener {
+        private final ScheduledExecutorService io;
+        private final int ioMillis;
+
+        AsyncListener(ScheduledExecutorService io, int ioMillis) {
+            this.io = io;
+            this.ioMillis = ioMillis;
+        }
+
+        @Subscribe
+        public CompletableFuture<Void> onLogin(LoginAttempt event) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            io.schedule(() -> {
+                event.allowed = true;
+                future.complete(null);
+            }, ioMillis, TimeUnit.MILLISECONDS);
+            return future;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.velocitypowered.proxy.plugin;
+
+import com.velocitypowered.api.event.Subscribe;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round trip of firing an event to a number of listeners and waiting for it to complete.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VelocityEventManagerBenchmark {
+    @Param({"0", "1", "10", "100"})
+    public int listeners;
+
+    private VelocityEventManager eventManager;
+
+    @Setup
+    public void setup() {
+        eventManager = new VelocityEventManager(new SinglePluginManager());
+        for (int i = 0; i < listeners; i++) {
+            eventManager.register(SinglePluginManager.PLUGIN, new BenchmarkListener());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        eventManager.shutdown();
+    }
+
+    @Benchmark
+    public BenchmarkEvent fire() {
+        return eventManager.fire(new BenchmarkEvent()).join();
+    }
+
+    public static class BenchmarkEvent {
+        private int calls;
+    }
+
+    public static class BenchmarkListener {
+        @Subscribe
+        public void onEvent(BenchmarkEvent event) {
+            event.calls++;
+            Blackhole.consumeCPU(10);
+        }
+    }
+}
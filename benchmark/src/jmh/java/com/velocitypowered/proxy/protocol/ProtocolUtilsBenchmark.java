@@ -0,0 +1,92 @@
+package com.velocitypowered.proxy.protocol;
+
+import com.google.common.base.Strings;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolUtilsBenchmark {
+    @State(Scope.Thread)
+    public static class VarIntState {
+        @Param({"1", "300", "70000", "2097151", "-1"})
+        public int value;
+
+        ByteBuf buf;
+        ByteBuf encoded;
+
+        @Setup
+        public void setup() {
+            buf = Unpooled.directBuffer(ProtocolUtils.MAXIMUM_VARINT_SIZE);
+            encoded = Unpooled.directBuffer(ProtocolUtils.MAXIMUM_VARINT_SIZE);
+            ProtocolUtils.writeVarInt(encoded, value);
+        }
+
+        @TearDown
+        public void tearDown() {
+            buf.release();
+            encoded.release();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class StringState {
+        @Param({"16", "256", "32767"})
+        public int length;
+
+        String value;
+        ByteBuf buf;
+        ByteBuf encoded;
+
+        @Setup
+        public void setup() {
+            value = Strings.repeat("a", length);
+            buf = Unpooled.directBuffer(length + ProtocolUtils.MAXIMUM_VARINT_SIZE);
+            encoded = Unpooled.directBuffer(length + ProtocolUtils.MAXIMUM_VARINT_SIZE);
+            ProtocolUtils.writeString(encoded, value);
+        }
+
+        @TearDown
+        public void tearDown() {
+            buf.release();
+            encoded.release();
+        }
+    }
+
+    @Benchmark
+    public ByteBuf writeVarInt(VarIntState state) {
+        state.buf.clear();
+        ProtocolUtils.writeVarInt(state.buf, state.value);
+        return state.buf;
+    }
+
+    @Benchmark
+    public int readVarInt(VarIntState state) {
+        state.encoded.readerIndex(0);
+        return ProtocolUtils.readVarInt(state.encoded);
+    }
+
+    @Benchmark
+    public int varIntBytes(VarIntState state) {
+        return ProtocolUtils.varIntBytes(state.value);
+    }
+
+    @Benchmark
+    public ByteBuf writeString(StringState state) {
+        state.buf.clear();
+        ProtocolUtils.writeString(state.buf, state.value);
+        return state.buf;
+    }
+
+    @Benchmark
+    public String readString(StringState state) {
+        state.encoded.readerIndex(0);
+        return ProtocolUtils.readString(state.encoded);
+    }
+}
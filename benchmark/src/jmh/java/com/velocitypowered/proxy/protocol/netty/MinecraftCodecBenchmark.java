@@ -0,0 +1,205 @@
+package com.velocitypowered.proxy.protocol.netty;
+
+import com.google.common.collect.ImmutableList;
+import com.velocitypowered.proxy.data.scoreboard.ObjectiveMode;
+import com.velocitypowered.proxy.metrics.PacketMetrics;
+import com.velocitypowered.proxy.metrics.ProxyMetrics;
+import com.velocitypowered.proxy.protocol.MinecraftPacket;
+import com.velocitypowered.proxy.protocol.ProtocolConstants;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import com.velocitypowered.proxy.protocol.packet.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
+import net.kyori.text.TextComponent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.velocitypowered.proxy.protocol.ProtocolConstants.Direction.CLIENTBOUND;
+import static com.velocitypowered.proxy.protocol.ProtocolConstants.Direction.SERVERBOUND;
+
+/**
+ * Encodes and decodes a sample of every packet registered in the play state. Packets the proxy does not decode are
+ * measured going through the decoder's relay path. {@code decodeSliceBaseline} decodes the same way the decoder did
+ * before it relayed frames untouched, wrapping every packet in a slice, so the two can be compared.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinecraftCodecBenchmark {
+    @Param({"ServerboundTabCompleteRequest", "ServerboundChat", "ServerboundClientSettings",
+            "ServerboundPluginMessage", "ServerboundKeepAlive", "ClientboundBossBar", "ClientboundChat",
+            "ClientboundTabCompleteResponse", "ClientboundPluginMessage", "ClientboundDisconnect",
+            "ClientboundKeepAlive", "ClientboundJoinGame", "ClientboundRespawn", "ClientboundHeaderAndFooter",
+            "ClientboundScoreboardDisplay", "ClientboundScoreboardObjective", "ClientboundScoreboardTeam",
+            "ClientboundScoreboardSetScore"})
+    public String packet;
+
+    @Param({"340", "401"})
+    public int protocolVersion;
+
+    private MinecraftPacket sample;
+    private MinecraftEncoder encoder;
+    private MinecraftDecoder decoder;
+    private PacketMetrics metrics;
+    private ByteBuf encoded;
+    private ByteBuf out;
+    private final List<Object> decoded = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        ProtocolConstants.Direction direction = packet.startsWith("Serverbound") ? SERVERBOUND : CLIENTBOUND;
+        sample = createSample(packet.substring("Serverbound".length()), direction);
+
+        encoder = new MinecraftEncoder(direction);
+        encoder.setState(StateRegistry.PLAY);
+        encoder.setProtocolVersion(protocolVersion);
+        decoder = new MinecraftDecoder(direction);
+        decoder.setState(StateRegistry.PLAY);
+        decoder.setProtocolVersion(protocolVersion);
+        metrics = ProxyMetrics.decoded(direction);
+
+        encoded = Unpooled.directBuffer();
+        encoder.encode(null, sample, encoded);
+        out = Unpooled.directBuffer(encoded.readableBytes());
+    }
+
+    @TearDown
+    public void tearDown() {
+        encoded.release();
+        out.release();
+    }
+
+    @Benchmark
+    public ByteBuf encode() {
+        out.clear();
+        encoder.encode(null, sample, out);
+        return out;
+    }
+
+    @Benchmark
+    public Object decode() throws Exception {
+        encoded.readerIndex(0);
+        decoder.decode(null, encoded, decoded);
+        Object result = decoded.get(0);
+        // The decoder retains packets it relays without decoding.
+        ReferenceCountUtil.release(result);
+        decoded.clear();
+        return result;
+    }
+
+    @Benchmark
+    public Object decodeSliceBaseline() throws Exception {
+        encoded.readerIndex(0);
+        ByteBuf slice = encoded.slice();
+        int size = encoded.readableBytes();
+        int packetId = ProtocolUtils.readVarInt(encoded);
+        metrics.record(StateRegistry.PLAY, packetId, size);
+        MinecraftPacket packet = decoder.getProtocolVersion().createPacket(packetId);
+        if (packet == null) {
+            encoded.skipBytes(encoded.readableBytes());
+            Object result = slice.retain();
+            ReferenceCountUtil.release(result);
+            return result;
+        }
+        packet.decode(encoded, decoder.getDirection(), protocolVersion);
+        return packet;
+    }
+
+    private static MinecraftPacket createSample(String name, ProtocolConstants.Direction direction) {
+        switch (name) {
+            case "TabCompleteRequest":
+                TabCompleteRequest request = new TabCompleteRequest();
+                request.setTransactionId(1);
+                request.setCommand("/velocity ver");
+                return request;
+            case "Chat":
+                return new Chat(direction == CLIENTBOUND ? "{\"text\":\"Hello, world!\"}" : "Hello, world!", Chat.CHAT);
+            case "ClientSettings":
+                ClientSettings settings = new ClientSettings();
+                settings.setLocale("en_US");
+                settings.setViewDistance((byte) 10);
+                settings.setChatColors(true);
+                settings.setSkinParts((short) 0x7F);
+                settings.setMainHand(1);
+                return settings;
+            case "PluginMessage":
+                PluginMessage message = new PluginMessage();
+                message.setChannel("minecraft:brand");
+                message.setData(new byte[] { 7, 'v', 'a', 'n', 'i', 'l', 'l', 'a' });
+                return message;
+            case "KeepAlive":
+                KeepAlive keepAlive = new KeepAlive();
+                keepAlive.setRandomId(System.nanoTime());
+                return keepAlive;
+            case "BossBar":
+                BossBar bossBar = new BossBar();
+                bossBar.setUuid(UUID.randomUUID());
+                bossBar.setAction(BossBar.ADD);
+                bossBar.setName("{\"text\":\"Boss\"}");
+                bossBar.setPercent(0.5f);
+                return bossBar;
+            case "TabCompleteResponse":
+                TabCompleteResponse response = new TabCompleteResponse();
+                response.setTransactionId(1);
+                response.setStart(10);
+                response.setLength(3);
+                response.getOffers().add(new TabCompleteResponse.Offer("version", null));
+                return response;
+            case "Disconnect":
+                Disconnect disconnect = new Disconnect();
+                disconnect.setReason("{\"text\":\"Goodbye!\"}");
+                return disconnect;
+            case "JoinGame":
+                JoinGame joinGame = new JoinGame();
+                joinGame.setEntityId(1);
+                joinGame.setMaxPlayers((short) 100);
+                joinGame.setLevelType("default");
+                return joinGame;
+            case "Respawn":
+                return new Respawn(0, (short) 1, (short) 0, "default");
+            case "HeaderAndFooter":
+                return new HeaderAndFooter("{\"text\":\"Header\"}", "{\"text\":\"Footer\"}");
+            case "ScoreboardDisplay":
+                ScoreboardDisplay display = new ScoreboardDisplay();
+                display.setPosition((byte) 1);
+                display.setDisplayName("objective");
+                return display;
+            case "ScoreboardObjective":
+                ScoreboardObjective objective = new ScoreboardObjective();
+                objective.setId("objective");
+                objective.setMode(ScoreboardObjective.ADD);
+                objective.setDisplayName(TextComponent.of("Objective"));
+                objective.setType(ObjectiveMode.INTEGER);
+                return objective;
+            case "ScoreboardTeam":
+                ScoreboardTeam team = new ScoreboardTeam();
+                team.setId("team");
+                team.setMode(ScoreboardTeam.ADD);
+                team.setDisplayName(TextComponent.of("Team"));
+                team.setPrefix(TextComponent.of("["));
+                team.setSuffix(TextComponent.of("]"));
+                team.setNameTagVisibility("always");
+                team.setCollisionRule("always");
+                team.setEntities(ImmutableList.of("Notch", "jeb_"));
+                return team;
+            case "ScoreboardSetScore":
+                ScoreboardSetScore score = new ScoreboardSetScore();
+                score.setEntity("Notch");
+                score.setAction(ScoreboardSetScore.CHANGE);
+                score.setObjective("objective");
+                score.setValue(42);
+                return score;
+            default:
+                throw new IllegalArgumentException("No sample for " + name);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.velocitypowered.proxy.protocol.netty;
+
+import com.velocitypowered.natives.compression.JavaVelocityCompressor;
+import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.proxy.network.Connections;
+import com.velocitypowered.proxy.protocol.MinecraftPacket;
+import com.velocitypowered.proxy.protocol.ProtocolConstants;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import com.velocitypowered.proxy.protocol.packet.PluginMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a packet through the outbound Minecraft pipeline (encoder, compression and framing). The {@code copying}
+ * mode uses the handlers as they were before the headers were written in place, as a baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutboundPipelineBenchmark {
+    @Param({"in-place", "copying"})
+    public String mode;
+
+    @Param({"64", "1024", "16384"})
+    public int size;
+
+    @Param({"-1", "256"})
+    public int threshold;
+
+    private EmbeddedChannel channel;
+    private MinecraftPacket packet;
+
+    @Setup
+    public void setup() {
+        boolean inPlace = mode.equals("in-place");
+        channel = new EmbeddedChannel();
+        channel.pipeline().addLast(Connections.FRAME_ENCODER,
+                inPlace ? MinecraftVarintLengthEncoder.INSTANCE : CopyingLengthEncoder.INSTANCE);
+        if (threshold != -1) {
+            VelocityCompressor compressor = JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION);
+            channel.pipeline().addLast(Connections.COMPRESSION_ENCODER, inPlace
+                    ? new MinecraftCompressEncoder(threshold, compressor)
+                    : new CopyingCompressEncoder(threshold, compressor));
+        }
+        MinecraftEncoder encoder = inPlace ? new MinecraftEncoder(ProtocolConstants.Direction.CLIENTBOUND)
+                : new CopyingEncoder(ProtocolConstants.Direction.CLIENTBOUND);
+        encoder.setState(StateRegistry.PLAY);
+        encoder.setProtocolVersion(ProtocolConstants.MINECRAFT_1_13_1);
+        channel.pipeline().addLast(Connections.MINECRAFT_ENCODER, encoder);
+
+        // Plugin messages are sized by their payload, which is half random and half compressible.
+        byte[] data = new byte[size];
+        new Random(1).nextBytes(data);
+        for (int i = size / 2; i < size; i++) {
+            data[i] = (byte) (i % 16);
+        }
+        PluginMessage message = new PluginMessage();
+        message.setChannel("benchmark:data");
+        message.setData(data);
+        packet = message;
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int write() {
+        channel.writeOutbound(packet);
+        int written = 0;
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            written += ((ByteBuf) msg).readableBytes();
+            ReferenceCountUtil.release(msg);
+        }
+        return written;
+    }
+
+    private static class CopyingEncoder extends MinecraftEncoder {
+        private CopyingEncoder(ProtocolConstants.Direction direction) {
+            super(direction);
+        }
+
+        @Override
+        protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, MinecraftPacket msg, boolean preferDirect) {
+            return preferDirect ? ctx.alloc().ioBuffer() : ctx.alloc().heapBuffer();
+        }
+    }
+
+    private static class CopyingCompressEncoder extends MessageToByteEncoder<ByteBuf> {
+        private final int threshold;
+        private final VelocityCompressor compressor;
+
+        private CopyingCompressEncoder(int threshold, VelocityCompressor compressor) {
+            this.threshold = threshold;
+            this.compressor = compressor;
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) throws Exception {
+            int uncompressed = msg.readableBytes();
+            if (uncompressed <= threshold) {
+                ProtocolUtils.writeVarInt(out, 0);
+                out.writeBytes(msg);
+            } else {
+                ProtocolUtils.writeVarInt(out, uncompressed);
+                compressor.deflate(msg, out);
+            }
+        }
+
+        @Override
+        protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) {
+            if (msg.readableBytes() <= threshold) {
+                return ctx.alloc().directBuffer(msg.readableBytes() + 1);
+            }
+            return ctx.alloc().directBuffer(msg.readableBytes() / 3);
+        }
+
+        @Override
+        public void handlerRemoved(ChannelHandlerContext ctx) {
+            compressor.dispose();
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static class CopyingLengthEncoder extends MessageToMessageEncoder<ByteBuf> {
+        private static final CopyingLengthEncoder INSTANCE = new CopyingLengthEncoder();
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, ByteBuf buf, List<Object> list) {
+            ByteBuf lengthBuf = ctx.alloc().buffer(5);
+            ProtocolUtils.writeVarInt(lengthBuf, buf.readableBytes());
+            list.add(lengthBuf);
+            list.add(buf.retain());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.velocitypowered.proxy.util;
+
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates 1000 players joining at once and does the cryptographic work of logging each one in: decrypting the
+ * verify token and shared secret, then hashing the server ID. The work runs either on the event loops, as it used to,
+ * or on a pool of crypto workers like the proxy's. The {@code perCall} cipher looks up a new {@link Cipher} for every
+ * decryption, as {@link EncryptionUtils#decryptRsa(KeyPair, byte[])} used to. Scores are logins per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginCryptoBenchmark {
+    private static final int JOINS = 1000;
+
+    @Param({"eventLoop", "cryptoPool"})
+    public String executor;
+
+    @Param({"perCall", "threadLocal"})
+    public String cipher;
+
+    private KeyPair keyPair;
+    private byte[] encryptedToken;
+    private byte[] encryptedSecret;
+    private EventLoopGroup eventLoops;
+    private ThreadPoolExecutor cryptoPool;
+    private Executor target;
+
+    @Setup
+    public void setup() throws GeneralSecurityException {
+        keyPair = EncryptionUtils.createRsaKeyPair(1024);
+        byte[] token = new byte[4];
+        byte[] secret = new byte[16];
+        ThreadLocalRandom.current().nextBytes(token);
+        ThreadLocalRandom.current().nextBytes(secret);
+        Cipher encrypt = Cipher.getInstance("RSA");
+        encrypt.init(Cipher.ENCRYPT_MODE, keyPair.getPublic());
+        encryptedToken = encrypt.doFinal(token);
+        encryptedSecret = encrypt.doFinal(secret);
+
+        // Netty's default number of event loops.
+        eventLoops = new DefaultEventLoopGroup(Runtime.getRuntime().availableProcessors() * 2);
+        int threads = Runtime.getRuntime().availableProcessors();
+        cryptoPool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(JOINS));
+        target = executor.equals("cryptoPool") ? cryptoPool : eventLoops;
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventLoops.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        cryptoPool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOINS)
+    public void join() {
+        CompletableFuture<?>[] logins = new CompletableFuture<?>[JOINS];
+        for (int i = 0; i < JOINS; i++) {
+            logins[i] = CompletableFuture.supplyAsync(this::login, target);
+        }
+        CompletableFuture.allOf(logins).join();
+    }
+
+    private String login() {
+        try {
+            decrypt(encryptedToken);
+            return EncryptionUtils.generateServerId(decrypt(encryptedSecret), keyPair.getPublic());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] decrypt(byte[] bytes) throws GeneralSecurityException {
+        if (cipher.equals("threadLocal")) {
+            return EncryptionUtils.decryptRsa(keyPair, bytes);
+        }
+        Cipher perCall = Cipher.getInstance("RSA");
+        perCall.init(Cipher.DECRYPT_MODE, keyPair.getPrivate());
+        return perCall.doFinal(bytes);
+    }
+}
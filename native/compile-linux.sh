@@ -1,10 +1,18 @@
 #!/bin/bash
 
 # Modify as you need.
-MBEDTLS_ROOT=mbedtls-2.12.0
+# The cipher is built from the mbed TLS sources, which are expected to be unpacked next to this script
+# (https://tls.mbed.org/download, the version below is the one the natives are tested against).
+MBEDTLS_ROOT=${MBEDTLS_ROOT:-mbedtls-2.12.0}
 CFLAGS="-O3 -I$JAVA_HOME/include/ -I$JAVA_HOME/include/linux/ -fPIC -shared"
+
 gcc $CFLAGS -lz src/main/c/jni_util.c src/main/c/jni_zlib_deflate.c src/main/c/jni_zlib_inflate.c \
     -o src/main/resources/linux_x64/velocity-compress.so
-gcc $CFLAGS  -I $MBEDTLS_ROOT/include -shared $MBEDTLS_ROOT/library/aes.c $MBEDTLS_ROOT/library/aesni.c \
-    $MBEDTLS_ROOT/library/platform.c $MBEDTLS_ROOT/library/platform_util.c src/main/c/jni_util.c src/main/c/jni_cipher.c \
-    -o src/main/resources/linux_x64/velocity-cipher.so
\ No newline at end of file
+if [ -d "$MBEDTLS_ROOT" ]; then
+    # aesni.c checks for AES-NI at runtime and falls back to the table implementation without it.
+    gcc $CFLAGS -I $MBEDTLS_ROOT/include -shared $MBEDTLS_ROOT/library/aes.c $MBEDTLS_ROOT/library/aesni.c \
+        $MBEDTLS_ROOT/library/platform.c $MBEDTLS_ROOT/library/platform_util.c src/main/c/jni_util.c src/main/c/jni_cipher.c \
+        -o src/main/resources/linux_x64/velocity-cipher.so
+else
+    echo "mbed TLS sources not found in $MBEDTLS_ROOT, skipping velocity-cipher.so" >&2
+fi
@@ -12,42 +12,97 @@ public class JavaVelocityCompressor implements VelocityCompressor {
 
     private final Deflater deflater;
     private final Inflater inflater;
-    private final byte[] buf;
+    // Staging for buffers that have no backing array. zlib only reads input when it needs more, so the input staging
+    // array may be refilled once the previous chunk has been consumed.
+    private final byte[] inputStaging;
+    private final byte[] outputStaging;
     private boolean disposed = false;
 
     private JavaVelocityCompressor(int level) {
         this.deflater = new Deflater(level);
         this.inflater = new Inflater();
-        this.buf = new byte[ZLIB_BUFFER_SIZE];
+        this.inputStaging = new byte[ZLIB_BUFFER_SIZE];
+        this.outputStaging = new byte[ZLIB_BUFFER_SIZE];
     }
 
     @Override
     public void inflate(ByteBuf source, ByteBuf destination) throws DataFormatException {
         ensureNotDisposed();
 
-        byte[] inData = new byte[source.readableBytes()];
-        source.readBytes(inData);
-        inflater.setInput(inData);
-        while (!inflater.finished()) {
-            int read = inflater.inflate(buf);
-            destination.writeBytes(buf, 0, read);
+        int index = source.readerIndex();
+        int end = source.writerIndex();
+        try {
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    if (index == end) {
+                        throw new DataFormatException("Truncated compressed data");
+                    }
+                    if (source.hasArray()) {
+                        inflater.setInput(source.array(), source.arrayOffset() + index, end - index);
+                        index = end;
+                    } else {
+                        int chunk = Math.min(inputStaging.length, end - index);
+                        source.getBytes(index, inputStaging, 0, chunk);
+                        inflater.setInput(inputStaging, 0, chunk);
+                        index += chunk;
+                    }
+                } else if (inflater.needsDictionary()) {
+                    throw new DataFormatException("Compressed data requires a dictionary");
+                }
+
+                if (destination.hasArray()) {
+                    destination.ensureWritable(1);
+                    int written = inflater.inflate(destination.array(),
+                            destination.arrayOffset() + destination.writerIndex(), destination.writableBytes());
+                    destination.writerIndex(destination.writerIndex() + written);
+                } else {
+                    int written = inflater.inflate(outputStaging);
+                    destination.writeBytes(outputStaging, 0, written);
+                }
+            }
+            // Anything zlib didn't need is left readable, as the stream may be followed by other data.
+            source.readerIndex(index - inflater.getRemaining());
+        } finally {
+            inflater.reset();
         }
-        inflater.reset();
     }
 
     @Override
     public void deflate(ByteBuf source, ByteBuf destination) throws DataFormatException {
         ensureNotDisposed();
 
-        byte[] inData = new byte[source.readableBytes()];
-        source.readBytes(inData);
-        deflater.setInput(inData);
-        deflater.finish();
-        while (!deflater.finished()) {
-            int bytes = deflater.deflate(buf);
-            destination.writeBytes(buf, 0, bytes);
+        int index = source.readerIndex();
+        int end = source.writerIndex();
+        try {
+            while (!deflater.finished()) {
+                if (deflater.needsInput()) {
+                    if (index == end) {
+                        deflater.finish();
+                    } else if (source.hasArray()) {
+                        deflater.setInput(source.array(), source.arrayOffset() + index, end - index);
+                        index = end;
+                    } else {
+                        int chunk = Math.min(inputStaging.length, end - index);
+                        source.getBytes(index, inputStaging, 0, chunk);
+                        deflater.setInput(inputStaging, 0, chunk);
+                        index += chunk;
+                    }
+                }
+
+                if (destination.hasArray()) {
+                    destination.ensureWritable(1);
+                    int written = deflater.deflate(destination.array(),
+                            destination.arrayOffset() + destination.writerIndex(), destination.writableBytes());
+                    destination.writerIndex(destination.writerIndex() + written);
+                } else {
+                    int written = deflater.deflate(outputStaging);
+                    destination.writeBytes(outputStaging, 0, written);
+                }
+            }
+            source.readerIndex(end);
+        } finally {
+            deflater.reset();
         }
-        deflater.reset();
     }
 
     @Override
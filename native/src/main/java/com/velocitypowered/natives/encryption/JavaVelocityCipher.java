@@ -22,7 +22,10 @@ public class JavaVelocityCipher implements VelocityCipher {
         }
     };
 
+    private static final int STAGING_SIZE = 8192;
+
     private final Cipher cipher;
+    private byte[] staging;
     private boolean disposed = false;
 
     private JavaVelocityCipher(boolean encrypt, SecretKey key) throws GeneralSecurityException {
@@ -43,6 +46,29 @@ public class JavaVelocityCipher implements VelocityCipher {
         destination.writeBytes(destinationBytes);
     }
 
+    @Override
+    public void process(ByteBuf buf) throws ShortBufferException {
+        ensureNotDisposed();
+
+        int len = buf.readableBytes();
+        if (buf.hasArray()) {
+            int offset = buf.arrayOffset() + buf.readerIndex();
+            cipher.update(buf.array(), offset, len, buf.array(), offset);
+            return;
+        }
+
+        // Direct buffers go through a reusable array in chunks, rather than two new arrays the size of the buffer.
+        if (staging == null) {
+            staging = new byte[STAGING_SIZE];
+        }
+        for (int index = buf.readerIndex(), end = index + len; index < end; index += STAGING_SIZE) {
+            int chunk = Math.min(STAGING_SIZE, end - index);
+            buf.getBytes(index, staging, 0, chunk);
+            cipher.update(staging, 0, chunk, staging, 0);
+            buf.setBytes(index, staging, 0, chunk);
+        }
+    }
+
     @Override
     public void dispose() {
         disposed = true;
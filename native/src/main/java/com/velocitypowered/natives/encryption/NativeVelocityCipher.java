@@ -1,5 +1,6 @@
 package com.velocitypowered.natives.encryption;
 
+import com.google.common.base.Preconditions;
 import io.netty.buffer.ByteBuf;
 
 import javax.crypto.SecretKey;
@@ -31,18 +32,60 @@ public class NativeVelocityCipher implements VelocityCipher {
 
     @Override
     public void process(ByteBuf source, ByteBuf destination) throws ShortBufferException {
-        source.memoryAddress();
-        destination.memoryAddress();
+        ensureNotDisposed();
 
         // The exact amount we read in is also the amount we write out.
         int len = source.readableBytes();
-        destination.ensureWritable(len);
+        if (len == 0) {
+            return;
+        }
+
+        // mbed TLS works on raw memory, so heap and composite buffers have to be staged through a direct buffer.
+        ByteBuf directSource = source.hasMemoryAddress() ? source
+                : source.alloc().directBuffer(len).writeBytes(source, source.readerIndex(), len);
+        ByteBuf directDestination = destination.hasMemoryAddress() ? destination.ensureWritable(len)
+                : destination.alloc().directBuffer(len);
+        try {
+            impl.process(ctx, directSource.memoryAddress() + directSource.readerIndex(), len,
+                    directDestination.memoryAddress() + directDestination.writerIndex(), encrypt);
+            directDestination.writerIndex(directDestination.writerIndex() + len);
+            if (directDestination != destination) {
+                destination.writeBytes(directDestination);
+            }
+            source.skipBytes(len);
+        } finally {
+            if (directSource != source) {
+                directSource.release();
+            }
+            if (directDestination != destination) {
+                directDestination.release();
+            }
+        }
+    }
+
+    @Override
+    public void process(ByteBuf buf) throws ShortBufferException {
+        ensureNotDisposed();
 
-        impl.process(ctx, source.memoryAddress() + source.readerIndex(), len,
-                destination.memoryAddress() + destination.writerIndex(), encrypt);
+        int len = buf.readableBytes();
+        if (len == 0) {
+            return;
+        }
+
+        if (buf.hasMemoryAddress()) {
+            // CFB8 reads each input byte before it writes the matching output byte, so the ranges may overlap.
+            long address = buf.memoryAddress() + buf.readerIndex();
+            impl.process(ctx, address, len, address, encrypt);
+            return;
+        }
 
-        source.skipBytes(len);
-        destination.writerIndex(destination.writerIndex() + len);
+        ByteBuf staging = buf.alloc().directBuffer(len).writeBytes(buf, buf.readerIndex(), len);
+        try {
+            impl.process(ctx, staging.memoryAddress(), len, staging.memoryAddress(), encrypt);
+            buf.setBytes(buf.readerIndex(), staging, 0, len);
+        } finally {
+            staging.release();
+        }
     }
 
     @Override
@@ -52,4 +95,8 @@ public class NativeVelocityCipher implements VelocityCipher {
         }
         disposed = true;
     }
+
+    private void ensureNotDisposed() {
+        Preconditions.checkState(!disposed, "Object already disposed");
+    }
 }
@@ -7,4 +7,11 @@ import javax.crypto.ShortBufferException;
 
 public interface VelocityCipher extends Disposable {
     void process(ByteBuf source, ByteBuf destination) throws ShortBufferException;
+
+    /**
+     * Encrypts or decrypts the readable bytes of the buffer in place. The buffer's indices are left untouched.
+     * @param buf the buffer to process
+     * @throws ShortBufferException if the cipher fails to process the buffer
+     */
+    void process(ByteBuf buf) throws ShortBufferException;
 }
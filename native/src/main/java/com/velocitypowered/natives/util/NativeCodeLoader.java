@@ -59,7 +59,7 @@ public class NativeCodeLoader<T> implements Supplier<T> {
                 try {
                     setup.run();
                     hasBeenSetup = true;
-                } catch (Exception e) {
+                } catch (Exception | UnsatisfiedLinkError e) {
                     available = false;
                 }
             }
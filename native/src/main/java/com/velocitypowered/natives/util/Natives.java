@@ -10,6 +10,7 @@ import com.velocitypowered.natives.encryption.NativeVelocityCipher;
 import com.velocitypowered.natives.encryption.VelocityCipherFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -21,9 +22,20 @@ public class Natives {
 
     private static Runnable copyAndLoadNative(String path) {
         return () -> {
-            try {
+            try (InputStream in = Natives.class.getResourceAsStream(path)) {
+                if (in == null) {
+                    // Not bundled in this build, so this variant isn't available.
+                    throw new IllegalStateException("Native library " + path + " is not bundled");
+                }
+
                 Path tempFile = Files.createTempFile("native-", path.substring(path.lastIndexOf('.')));
-                Files.copy(Natives.class.getResourceAsStream(path), tempFile, StandardCopyOption.REPLACE_EXISTING);
+                try {
+                    Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                    System.load(tempFile.toAbsolutePath().toString());
+                } catch (IOException | RuntimeException | UnsatisfiedLinkError e) {
+                    Files.deleteIfExists(tempFile);
+                    throw e;
+                }
                 Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                     try {
                         Files.deleteIfExists(tempFile);
@@ -31,7 +43,6 @@ public class Natives {
                         // Well, it doesn't matter...
                     }
                 }));
-                System.load(tempFile.toAbsolutePath().toString());
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
@@ -13,6 +13,8 @@ import java.util.function.Supplier;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.condition.OS.LINUX;
@@ -41,10 +43,66 @@ class VelocityCompressorTest {
         check(compressor);
     }
 
-    private void check(VelocityCompressor compressor) throws DataFormatException {
-        ByteBuf source = Unpooled.directBuffer();
+    @Test
+    void javaIntegrityCheckHeap() throws DataFormatException {
+        VelocityCompressor compressor = JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION);
+        check(compressor, Unpooled::buffer);
+    }
+
+    @Test
+    void javaIntegrityCheckMixed() throws DataFormatException {
+        // Heap source, direct compressed data and a heap destination with data in front of the writer index.
+        VelocityCompressor compressor = JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION);
+        ByteBuf source = Unpooled.buffer();
+        ByteBuf dest = Unpooled.directBuffer();
+        ByteBuf decompressed = Unpooled.buffer().writeZero(3).skipBytes(3);
+
+        Random random = new Random(1);
+        byte[] randomBytes = new byte[1 << 16];
+        random.nextBytes(randomBytes);
+        source.writeBytes(randomBytes);
+
+        try {
+            compressor.deflate(source, dest);
+            dest.writeByte(42);
+            compressor.inflate(dest, decompressed);
+            assertEquals(1, dest.readableBytes(), "inflate should leave data after the stream");
+            source.readerIndex(0);
+            assertTrue(ByteBufUtil.equals(source, decompressed));
+        } finally {
+            source.release();
+            dest.release();
+            decompressed.release();
+            compressor.dispose();
+        }
+    }
+
+    @Test
+    void javaRejectsTruncatedData() throws DataFormatException {
+        VelocityCompressor compressor = JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION);
+        ByteBuf source = Unpooled.directBuffer().writeBytes(new byte[1 << 12]);
         ByteBuf dest = Unpooled.directBuffer();
         ByteBuf decompressed = Unpooled.directBuffer();
+        try {
+            compressor.deflate(source, dest);
+            dest.writerIndex(dest.writerIndex() / 2);
+            assertThrows(DataFormatException.class, () -> compressor.inflate(dest, decompressed));
+        } finally {
+            source.release();
+            dest.release();
+            decompressed.release();
+            compressor.dispose();
+        }
+    }
+
+    private void check(VelocityCompressor compressor) throws DataFormatException {
+        check(compressor, Unpooled::directBuffer);
+    }
+
+    private void check(VelocityCompressor compressor, Supplier<ByteBuf> bufSupplier) throws DataFormatException {
+        ByteBuf source = bufSupplier.get();
+        ByteBuf dest = bufSupplier.get();
+        ByteBuf decompressed = bufSupplier.get();
 
         Random random = new Random(1);
         byte[] randomBytes = new byte[1 << 16];
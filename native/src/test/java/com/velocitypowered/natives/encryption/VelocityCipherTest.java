@@ -12,6 +12,8 @@ import javax.crypto.spec.SecretKeySpec;
 import java.security.GeneralSecurityException;
 import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -26,18 +28,67 @@ class VelocityCipherTest {
     @Test
     @Disabled
     void nativeIntegrityCheck() throws GeneralSecurityException {
-        VelocityCipherFactory factory = Natives.cipher.get();
-        if (factory == JavaVelocityCipher.FACTORY) {
-            fail("Loaded regular compressor");
-        }
+        VelocityCipherFactory factory = nativeFactory();
         check(factory);
     }
 
+    @Test
+    @Disabled
+    void nativeMatchesJava() throws GeneralSecurityException {
+        VelocityCipherFactory factory = nativeFactory();
+
+        Random random = new Random(2);
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        VelocityCipher javaCipher = JavaVelocityCipher.FACTORY.forEncryption(new SecretKeySpec(key, "AES"));
+        VelocityCipher nativeCipher = factory.forEncryption(new SecretKeySpec(key, "AES"));
+        try {
+            // Both ciphers carry their state across calls, so every chunk has to come out the same.
+            for (int i = 0; i < 64; i++) {
+                byte[] data = new byte[random.nextInt(ENCRYPT_DATA_SIZE)];
+                random.nextBytes(data);
+                ByteBuf javaResult = processSplit(javaCipher, data, random.nextInt(data.length + 1), false);
+                ByteBuf nativeResult = processSplit(nativeCipher, data, random.nextInt(data.length + 1),
+                        random.nextBoolean());
+                try {
+                    assertTrue(ByteBufUtil.equals(javaResult, nativeResult), "Mismatch for " + data.length + " bytes");
+                } finally {
+                    javaResult.release();
+                    nativeResult.release();
+                }
+            }
+        } finally {
+            javaCipher.dispose();
+            nativeCipher.dispose();
+        }
+    }
+
+    @Test
+    void javaHandlesSplitAndCompositeBuffers() throws GeneralSecurityException {
+        checkSplit(JavaVelocityCipher.FACTORY);
+    }
+
+    @Test
+    @Disabled
+    void nativeHandlesSplitAndCompositeBuffers() throws GeneralSecurityException {
+        VelocityCipherFactory factory = nativeFactory();
+        checkSplit(factory);
+    }
+
     @Test
     void javaIntegrityCheck() throws GeneralSecurityException {
         check(JavaVelocityCipher.FACTORY);
     }
 
+    private static VelocityCipherFactory nativeFactory() {
+        // The native cipher is provided in source form only, so these only pass with a locally built library.
+        VelocityCipherFactory factory = Natives.cipher.get();
+        if (factory == JavaVelocityCipher.FACTORY) {
+            fail("Loaded regular cipher");
+        }
+        return factory;
+    }
+
     private void check(VelocityCipherFactory factory) throws GeneralSecurityException {
         // Generate a random 16-byte key.
         Random random = new Random(1);
@@ -68,4 +119,113 @@ class VelocityCipherTest {
             encrypt.dispose();
         }
     }
+
+    @Test
+    void javaInPlaceMatchesCopying() throws GeneralSecurityException {
+        checkInPlace(JavaVelocityCipher.FACTORY);
+    }
+
+    @Test
+    @Disabled
+    void nativeInPlaceMatchesCopying() throws GeneralSecurityException {
+        VelocityCipherFactory factory = nativeFactory();
+        checkInPlace(factory);
+    }
+
+    private void checkInPlace(VelocityCipherFactory factory) throws GeneralSecurityException {
+        Random random = new Random(4);
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        byte[] data = new byte[ENCRYPT_DATA_SIZE];
+        random.nextBytes(data);
+
+        VelocityCipher copying = factory.forEncryption(new SecretKeySpec(key, "AES"));
+        VelocityCipher inPlace = factory.forEncryption(new SecretKeySpec(key, "AES"));
+        VelocityCipher decrypt = factory.forDecryption(new SecretKeySpec(key, "AES"));
+        ByteBuf expected = Unpooled.directBuffer(ENCRYPT_DATA_SIZE);
+        // Alternate between heap and direct buffers, with the data not starting at index 0.
+        ByteBuf heap = Unpooled.buffer(ENCRYPT_DATA_SIZE + 3).writeZero(3).writeBytes(data, 0, ENCRYPT_DATA_SIZE / 2)
+                .skipBytes(3);
+        ByteBuf direct = Unpooled.directBuffer(ENCRYPT_DATA_SIZE)
+                .writeBytes(data, ENCRYPT_DATA_SIZE / 2, ENCRYPT_DATA_SIZE / 2);
+        try {
+            copying.process(Unpooled.wrappedBuffer(data), expected);
+            inPlace.process(heap);
+            inPlace.process(direct);
+            assertEquals(3, heap.readerIndex());
+            assertTrue(ByteBufUtil.equals(expected.slice(0, ENCRYPT_DATA_SIZE / 2), heap));
+            assertTrue(ByteBufUtil.equals(expected.slice(ENCRYPT_DATA_SIZE / 2, ENCRYPT_DATA_SIZE / 2), direct));
+
+            decrypt.process(heap);
+            decrypt.process(direct);
+            assertTrue(ByteBufUtil.equals(Unpooled.wrappedBuffer(data, 0, ENCRYPT_DATA_SIZE / 2), heap));
+            assertTrue(ByteBufUtil.equals(Unpooled.wrappedBuffer(data, ENCRYPT_DATA_SIZE / 2, ENCRYPT_DATA_SIZE / 2),
+                    direct));
+        } finally {
+            expected.release();
+            heap.release();
+            direct.release();
+            copying.dispose();
+            inPlace.dispose();
+            decrypt.dispose();
+        }
+    }
+
+    private void checkSplit(VelocityCipherFactory factory) throws GeneralSecurityException {
+        Random random = new Random(3);
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        byte[] data = new byte[ENCRYPT_DATA_SIZE];
+        random.nextBytes(data);
+
+        VelocityCipher encrypt = factory.forEncryption(new SecretKeySpec(key, "AES"));
+        VelocityCipher decrypt = factory.forDecryption(new SecretKeySpec(key, "AES"));
+        ByteBuf encrypted = processSplit(encrypt, data, 12345, true);
+        ByteBuf decrypted = Unpooled.buffer(ENCRYPT_DATA_SIZE);
+        try {
+            // Decrypt into a heap buffer from a slice, one byte at a time for the first few bytes.
+            for (int i = 0; i < 16; i++) {
+                decrypt.process(encrypted.readSlice(1), decrypted);
+            }
+            decrypt.process(encrypted, decrypted);
+            assertTrue(ByteBufUtil.equals(Unpooled.wrappedBuffer(data), decrypted));
+        } finally {
+            encrypted.release();
+            decrypted.release();
+            encrypt.dispose();
+            decrypt.dispose();
+        }
+    }
+
+    /**
+     * Processes {@code data} as two separate calls split at {@code split}, with the second part optionally supplied as
+     * a composite buffer made of a heap and a direct component.
+     */
+    private static ByteBuf processSplit(VelocityCipher cipher, byte[] data, int split, boolean composite)
+            throws GeneralSecurityException {
+        ByteBuf first = Unpooled.directBuffer(split).writeBytes(data, 0, split);
+        ByteBuf second;
+        if (composite) {
+            int middle = split + (data.length - split) / 2;
+            second = Unpooled.wrappedBuffer(Unpooled.wrappedBuffer(data, split, middle - split),
+                    Unpooled.directBuffer(data.length - middle).writeBytes(data, middle, data.length - middle));
+        } else {
+            second = Unpooled.directBuffer(data.length - split).writeBytes(data, split, data.length - split);
+        }
+
+        ByteBuf result = Unpooled.directBuffer(data.length);
+        try {
+            cipher.process(first, result);
+            cipher.process(second, result);
+            assertFalse(first.isReadable());
+            assertFalse(second.isReadable());
+            return result;
+        } catch (GeneralSecurityException | RuntimeException e) {
+            result.release();
+            throw e;
+        } finally {
+            first.release();
+            second.release();
+        }
+    }
 }
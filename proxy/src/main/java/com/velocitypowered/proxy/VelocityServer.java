@@ -2,6 +2,7 @@ package com.velocitypowered.proxy;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.velocitypowered.api.command.CommandSource;
@@ -11,6 +12,7 @@ import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
 import com.velocitypowered.api.util.Favicon;
+import com.velocitypowered.api.util.MessagePosition;
 import com.velocitypowered.api.plugin.PluginManager;
 import com.velocitypowered.api.proxy.server.ServerInfo;
 import com.velocitypowered.proxy.network.ConnectionManager;
@@ -19,19 +21,22 @@ import com.velocitypowered.proxy.command.ShutdownCommand;
 import com.velocitypowered.proxy.command.VelocityCommand;
 import com.velocitypowered.proxy.config.VelocityConfiguration;
 import com.velocitypowered.proxy.connection.client.ConnectedPlayer;
+import com.velocitypowered.proxy.connection.client.LoginAdmissionController;
+import com.velocitypowered.proxy.connection.client.PlayerBroadcast;
+import com.velocitypowered.proxy.connection.client.ServerListPingCache;
 import com.velocitypowered.proxy.connection.http.NettyHttpClient;
 import com.velocitypowered.proxy.command.VelocityCommandManager;
 import com.velocitypowered.proxy.messages.VelocityChannelRegistrar;
 import com.velocitypowered.proxy.plugin.VelocityEventManager;
 import com.velocitypowered.proxy.protocol.util.FaviconSerializer;
 import com.velocitypowered.proxy.plugin.VelocityPluginManager;
-import com.velocitypowered.proxy.scheduler.Sleeper;
 import com.velocitypowered.proxy.scheduler.VelocityScheduler;
 import com.velocitypowered.proxy.util.AddressUtil;
 import com.velocitypowered.proxy.util.EncryptionUtils;
 import com.velocitypowered.proxy.util.Ratelimiter;
 import com.velocitypowered.proxy.util.ServerMap;
 import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.EventLoopGroup;
 import net.kyori.text.Component;
 import net.kyori.text.TextComponent;
 import net.kyori.text.serializer.ComponentSerializers;
@@ -46,8 +51,12 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.KeyPair;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class VelocityServer implements ProxyServer {
@@ -57,6 +66,10 @@ public class VelocityServer implements ProxyServer {
             .registerTypeHierarchyAdapter(Component.class, new GsonComponentSerializer())
             .registerTypeHierarchyAdapter(Favicon.class, new FaviconSerializer())
             .create();
+    // Logins are bursty, so a short queue in front of the crypto workers soaks up a mass reconnect while a longer one
+    // would only keep players waiting on work that can't finish before they time out.
+    private static final int CRYPTO_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int MAX_PENDING_CRYPTO_TASKS = 1024;
 
     private final ConnectionManager cm = new ConnectionManager();
     private VelocityConfiguration configuration;
@@ -82,9 +95,12 @@ public class VelocityServer implements ProxyServer {
         }
     };
     private Ratelimiter ipAttemptLimiter;
+    private ServerListPingCache serverListPingCache;
     private VelocityEventManager eventManager;
     private VelocityScheduler scheduler;
     private VelocityChannelRegistrar channelRegistrar;
+    private ThreadPoolExecutor cryptoService;
+    private LoginAdmissionController loginAdmission;
 
     private VelocityServer() {
         commandManager.register(new VelocityCommand(), "velocity");
@@ -135,9 +151,18 @@ public class VelocityServer implements ProxyServer {
 
         serverKeyPair = EncryptionUtils.createRsaKeyPair(1024);
         ipAttemptLimiter = new Ratelimiter(configuration.getLoginRatelimit());
-        httpClient = new NettyHttpClient(this);
+        serverListPingCache = new ServerListPingCache(configuration.getPingCacheTtl(), this::getPlayerCount);
+        loginAdmission = new LoginAdmissionController(configuration.getMaxConcurrentLogins(),
+                configuration.getMaxQueuedLogins());
+        cryptoService = new ThreadPoolExecutor(CRYPTO_THREADS, CRYPTO_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING_CRYPTO_TASKS), new ThreadFactoryBuilder().setDaemon(true)
+                .setNameFormat("Velocity Crypto Worker - #%d").build());
+        cryptoService.allowCoreThreadTimeOut(true);
+        httpClient = new NettyHttpClient(initializeGenericBootstrap(), cm.getResolverGroup(),
+                configuration.getHttpMaxConnections(), configuration.getHttpMaxPendingRequests(),
+                configuration.getHttpConnectTimeout(), configuration.getHttpReadTimeout());
         eventManager = new VelocityEventManager(pluginManager);
-        scheduler = new VelocityScheduler(pluginManager, Sleeper.SYSTEM);
+        scheduler = new VelocityScheduler(pluginManager);
         channelRegistrar = new VelocityChannelRegistrar();
         loadPlugins();
 
@@ -150,11 +175,19 @@ public class VelocityServer implements ProxyServer {
             // issues) and there is almost no chance ExecutionException will be thrown.
         }
 
+        if (configuration.getEventLoopStallThreshold() > 0) {
+            this.cm.startWatchdog(pluginManager, configuration.getEventLoopStallThreshold());
+        }
+
         this.cm.bind(configuration.getBind());
 
         if (configuration.isQueryEnabled()) {
             this.cm.queryBind(configuration.getBind().getHostString(), configuration.getQueryPort());
         }
+
+        if (configuration.isMetricsEnabled()) {
+            this.cm.metricsBind(configuration.getMetricsBind(), loginAdmission);
+        }
     }
 
     private void loadPlugins() {
@@ -193,6 +226,10 @@ public class VelocityServer implements ProxyServer {
         return this.cm.createWorker();
     }
 
+    public Bootstrap initializeGenericBootstrap(EventLoopGroup group) {
+        return this.cm.createWorker(group);
+    }
+
     public boolean isShutdown() {
         return shutdown;
     }
@@ -206,6 +243,7 @@ public class VelocityServer implements ProxyServer {
         }
 
         this.cm.shutdown();
+        this.cryptoService.shutdown();
 
         eventManager.fire(new ProxyShutdownEvent());
         try {
@@ -219,14 +257,32 @@ public class VelocityServer implements ProxyServer {
         shutdown = true;
     }
 
+    public LoginAdmissionController getLoginAdmission() {
+        return loginAdmission;
+    }
+
     public NettyHttpClient getHttpClient() {
         return httpClient;
     }
 
+    /**
+     * Returns the executor for expensive cryptographic work done while logging players in, such as RSA decryption,
+     * which would otherwise stall every connection on the calling event loop. It throws a
+     * {@link java.util.concurrent.RejectedExecutionException} when it is saturated.
+     * @return the executor
+     */
+    public Executor getCryptoService() {
+        return cryptoService;
+    }
+
     public Ratelimiter getIpAttemptLimiter() {
         return ipAttemptLimiter;
     }
 
+    public ServerListPingCache getServerListPingCache() {
+        return serverListPingCache;
+    }
+
     public boolean registerConnection(ConnectedPlayer connection) {
         String lowerName = connection.getUsername().toLowerCase(Locale.US);
         if (connectionsByName.putIfAbsent(lowerName, connection) != null) {
@@ -266,6 +322,16 @@ public class VelocityServer implements ProxyServer {
         return connectionsByUuid.size();
     }
 
+    @Override
+    public void broadcast(Collection<? extends Player> players, Component component, MessagePosition position) {
+        PlayerBroadcast.broadcast(players, component, position);
+    }
+
+    @Override
+    public void broadcastHeaderAndFooter(Collection<? extends Player> players, Component header, Component footer) {
+        PlayerBroadcast.broadcastHeaderAndFooter(players, header, footer);
+    }
+
     @Override
     public Optional<ServerInfo> getServerInfo(String name) {
         Preconditions.checkNotNull(name, "name");
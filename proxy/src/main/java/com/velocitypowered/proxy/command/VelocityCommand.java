@@ -1,15 +1,31 @@
 package com.velocitypowered.proxy.command;
 
+import com.google.common.collect.ImmutableList;
 import com.velocitypowered.api.command.Command;
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.metrics.EventHandlerTimings;
+import com.velocitypowered.proxy.metrics.Histogram;
+import com.velocitypowered.proxy.metrics.ProxyMetrics;
 import net.kyori.text.TextComponent;
 import net.kyori.text.event.ClickEvent;
 import net.kyori.text.format.TextColor;
 
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
 public class VelocityCommand implements Command {
+    private static final int MAX_TIMINGS_SHOWN = 15;
+
     @Override
     public void execute(CommandSource source, String[] args) {
+        if (args.length > 0 && args[0].equalsIgnoreCase("timings")) {
+            showTimings(source);
+            return;
+        }
+
         String implVersion = VelocityServer.class.getPackage().getImplementationVersion();
         TextComponent thisIsVelocity = TextComponent.builder()
                 .content("This is ")
@@ -37,4 +53,61 @@ public class VelocityCommand implements Command {
         source.sendMessage(velocityInfo);
         source.sendMessage(velocityWebsite);
     }
+
+    private void showTimings(CommandSource source) {
+        if (!source.hasPermission("velocity.command.timings")) {
+            source.sendMessage(TextComponent.of("You are not allowed to use this command.", TextColor.RED));
+            return;
+        }
+
+        List<EventHandlerTimings.Entry> entries = ProxyMetrics.EVENT_HANDLERS.getEntries();
+        if (entries.isEmpty()) {
+            source.sendMessage(TextComponent.of("No event handlers have been timed yet.", TextColor.YELLOW));
+            return;
+        }
+
+        // Show the handlers that have taken up the most time in total first.
+        entries.sort(Comparator.comparingLong((EventHandlerTimings.Entry entry) -> entry.getHistogram().getSumNanos())
+                .reversed());
+        source.sendMessage(TextComponent.of("Event handler timings, sampling 1 in " + EventHandlerTimings.SAMPLE_INTERVAL
+                + " calls:", TextColor.DARK_AQUA));
+        for (EventHandlerTimings.Entry entry : entries.subList(0, Math.min(entries.size(), MAX_TIMINGS_SHOWN))) {
+            Histogram histogram = entry.getHistogram();
+            long samples = histogram.getCount();
+            long p95 = histogram.estimateQuantileNanos(0.95);
+            source.sendMessage(TextComponent.builder()
+                    .content(entry.getPluginId())
+                    .color(TextColor.GREEN)
+                    .append(TextComponent.of(" " + entry.getEventType().getSimpleName(), TextColor.WHITE))
+                    .append(TextComponent.of(String.format(Locale.US, ": %d samples, mean %.3f ms, p95 %s",
+                            samples, samples == 0 ? 0 : histogram.getSumNanos() / 1e6 / samples, formatBound(p95)),
+                            TextColor.GRAY))
+                    .build());
+        }
+        if (entries.size() > MAX_TIMINGS_SHOWN) {
+            source.sendMessage(TextComponent.of("... and " + (entries.size() - MAX_TIMINGS_SHOWN)
+                    + " more. The metrics endpoint has the full list.", TextColor.GRAY));
+        }
+    }
+
+    private static String formatBound(long nanos) {
+        if (nanos == Long.MAX_VALUE) {
+            return "over a minute";
+        }
+        if (nanos < TimeUnit.MILLISECONDS.toNanos(1)) {
+            return "up to " + TimeUnit.NANOSECONDS.toMicros(nanos) + " us";
+        }
+        return "up to " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms";
+    }
+
+    @Override
+    public List<String> suggest(CommandSource source, String[] currentArgs) {
+        if (currentArgs.length == 0) {
+            return ImmutableList.of("timings");
+        }
+        if (currentArgs.length == 1 && "timings".startsWith(currentArgs[0].toLowerCase(Locale.US))) {
+            return ImmutableList.of("timings");
+        }
+        return ImmutableList.of();
+    }
 }
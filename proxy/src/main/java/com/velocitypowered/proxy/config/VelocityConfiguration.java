@@ -3,6 +3,7 @@ package com.velocitypowered.proxy.config;
 import com.google.common.collect.ImmutableMap;
 import com.moandjiezana.toml.Toml;
 import com.velocitypowered.api.util.Favicon;
+import com.velocitypowered.proxy.protocol.netty.MinecraftVarintFrameDecoder;
 import com.velocitypowered.proxy.util.AddressUtil;
 import com.velocitypowered.api.util.LegacyChatColorUtils;
 import io.netty.buffer.ByteBufUtil;
@@ -35,9 +36,25 @@ public class VelocityConfiguration {
     private final int compressionThreshold;
     private final int compressionLevel;
     private final int loginRatelimit;
+    private final int maxHandshakePacketSize;
+    private final int maxLoginPacketSize;
+    private final int maxPlayPacketSize;
+    private final int pingCacheTtl;
+    private final int eventLoopStallThreshold;
+    private final int httpMaxConnections;
+    private final int httpMaxPendingRequests;
+    private final int httpConnectTimeout;
+    private final int httpReadTimeout;
+    private final int maxConcurrentLogins;
+    private final int maxQueuedLogins;
 
     private final boolean queryEnabled;
     private final int queryPort;
+    private final int queryResponseRefreshInterval;
+    private final int queryRequestInterval;
+
+    private final boolean metricsEnabled;
+    private final String metricsBind;
 
     private Component motdAsComponent;
     private Favicon favicon;
@@ -47,8 +64,14 @@ public class VelocityConfiguration {
     private VelocityConfiguration(String bind, String motd, int showMaxPlayers, boolean onlineMode,
                                   PlayerInfoForwarding playerInfoForwardingMode, Map<String, String> servers,
                                   List<String> attemptConnectionOrder, int compressionThreshold,
-                                  int compressionLevel, int loginRatelimit, boolean queryEnabled,
-                                  int queryPort, byte[] forwardingSecret) {
+                                  int compressionLevel, int loginRatelimit, int maxHandshakePacketSize,
+                                  int maxLoginPacketSize, int maxPlayPacketSize, int pingCacheTtl,
+                                  int eventLoopStallThreshold, int httpMaxConnections, int httpMaxPendingRequests,
+                                  int httpConnectTimeout, int httpReadTimeout, int maxConcurrentLogins,
+                                  int maxQueuedLogins,
+                                  boolean queryEnabled, int queryPort, int queryResponseRefreshInterval,
+                                  int queryRequestInterval, boolean metricsEnabled, String metricsBind,
+                                  byte[] forwardingSecret) {
         this.bind = bind;
         this.motd = motd;
         this.showMaxPlayers = showMaxPlayers;
@@ -59,8 +82,23 @@ public class VelocityConfiguration {
         this.compressionThreshold = compressionThreshold;
         this.compressionLevel = compressionLevel;
         this.loginRatelimit = loginRatelimit;
+        this.maxHandshakePacketSize = maxHandshakePacketSize;
+        this.maxLoginPacketSize = maxLoginPacketSize;
+        this.maxPlayPacketSize = maxPlayPacketSize;
+        this.pingCacheTtl = pingCacheTtl;
+        this.eventLoopStallThreshold = eventLoopStallThreshold;
+        this.httpMaxConnections = httpMaxConnections;
+        this.httpMaxPendingRequests = httpMaxPendingRequests;
+        this.httpConnectTimeout = httpConnectTimeout;
+        this.httpReadTimeout = httpReadTimeout;
+        this.maxConcurrentLogins = maxConcurrentLogins;
+        this.maxQueuedLogins = maxQueuedLogins;
         this.queryEnabled = queryEnabled;
         this.queryPort = queryPort;
+        this.queryResponseRefreshInterval = queryResponseRefreshInterval;
+        this.queryRequestInterval = queryRequestInterval;
+        this.metricsEnabled = metricsEnabled;
+        this.metricsBind = metricsBind;
         this.forwardingSecret = forwardingSecret;
     }
 
@@ -147,11 +185,92 @@ public class VelocityConfiguration {
             valid = false;
         }
 
+        if (!isValidPacketSize(maxHandshakePacketSize)) {
+            logger.error("Invalid maximum handshake packet size {}", maxHandshakePacketSize);
+            valid = false;
+        }
+
+        if (!isValidPacketSize(maxLoginPacketSize)) {
+            logger.error("Invalid maximum login packet size {}", maxLoginPacketSize);
+            valid = false;
+        }
+
+        if (!isValidPacketSize(maxPlayPacketSize)) {
+            logger.error("Invalid maximum play packet size {}", maxPlayPacketSize);
+            valid = false;
+        }
+
+        if (pingCacheTtl < 0) {
+            logger.error("Invalid ping cache TTL {}", pingCacheTtl);
+            valid = false;
+        }
+
+        if (eventLoopStallThreshold < 0) {
+            logger.error("Invalid event loop stall threshold {}", eventLoopStallThreshold);
+            valid = false;
+        }
+
+        if (httpMaxConnections <= 0) {
+            logger.error("Invalid maximum HTTP connections {}", httpMaxConnections);
+            valid = false;
+        }
+
+        if (httpMaxPendingRequests <= 0) {
+            logger.error("Invalid maximum pending HTTP requests {}", httpMaxPendingRequests);
+            valid = false;
+        }
+
+        if (httpConnectTimeout <= 0) {
+            logger.error("Invalid HTTP connect timeout {}", httpConnectTimeout);
+            valid = false;
+        }
+
+        if (httpReadTimeout <= 0) {
+            logger.error("Invalid HTTP read timeout {}", httpReadTimeout);
+            valid = false;
+        }
+
+        if (maxConcurrentLogins <= 0) {
+            logger.error("Invalid maximum concurrent logins {}", maxConcurrentLogins);
+            valid = false;
+        }
+
+        if (maxQueuedLogins < 0) {
+            logger.error("Invalid maximum queued logins {}", maxQueuedLogins);
+            valid = false;
+        }
+
+        if (queryResponseRefreshInterval < 0) {
+            logger.error("Invalid query response refresh interval {}", queryResponseRefreshInterval);
+            valid = false;
+        }
+
+        if (queryRequestInterval < 0) {
+            logger.error("Invalid query request interval {}", queryRequestInterval);
+            valid = false;
+        }
+
+        if (metricsEnabled) {
+            try {
+                InetSocketAddress address = AddressUtil.parseAddress(metricsBind);
+                if (address.isUnresolved() || !address.getAddress().isLoopbackAddress()) {
+                    logger.warn("Metrics are exposed on {}, which is not a loopback address.", metricsBind);
+                }
+            } catch (IllegalArgumentException e) {
+                logger.error("'metrics.bind' option does not specify a valid IP address.", e);
+                valid = false;
+            }
+        }
+
         loadFavicon();
 
         return valid;
     }
 
+    private static boolean isValidPacketSize(int size) {
+        return size > 0 && size <= MinecraftVarintFrameDecoder.MAXIMUM_FRAME_LENGTH;
+    }
+
     private void loadFavicon() {
         Path faviconPath = Paths.get("server-icon.png");
         if (Files.exists(faviconPath)) {
@@ -175,6 +294,22 @@ public class VelocityConfiguration {
         return queryPort;
     }
 
+    public int getQueryResponseRefreshInterval() {
+        return queryResponseRefreshInterval;
+    }
+
+    public int getQueryRequestInterval() {
+        return queryRequestInterval;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public InetSocketAddress getMetricsBind() {
+        return AddressUtil.parseAddress(metricsBind);
+    }
+
     public String getMotd() {
         return motd;
     }
@@ -222,6 +357,50 @@ public class VelocityConfiguration {
         return loginRatelimit;
     }
 
+    public int getMaxHandshakePacketSize() {
+        return maxHandshakePacketSize;
+    }
+
+    public int getMaxLoginPacketSize() {
+        return maxLoginPacketSize;
+    }
+
+    public int getMaxPlayPacketSize() {
+        return maxPlayPacketSize;
+    }
+
+    public int getPingCacheTtl() {
+        return pingCacheTtl;
+    }
+
+    public int getEventLoopStallThreshold() {
+        return eventLoopStallThreshold;
+    }
+
+    public int getHttpMaxConnections() {
+        return httpMaxConnections;
+    }
+
+    public int getHttpMaxPendingRequests() {
+        return httpMaxPendingRequests;
+    }
+
+    public int getHttpConnectTimeout() {
+        return httpConnectTimeout;
+    }
+
+    public int getHttpReadTimeout() {
+        return httpReadTimeout;
+    }
+
+    public int getMaxConcurrentLogins() {
+        return maxConcurrentLogins;
+    }
+
+    public int getMaxQueuedLogins() {
+        return maxQueuedLogins;
+    }
+
     public Favicon getFavicon() {
         return favicon;
     }
@@ -243,8 +422,23 @@ public class VelocityConfiguration {
                 ", compressionThreshold=" + compressionThreshold +
                 ", compressionLevel=" + compressionLevel +
                 ", loginRatelimit=" + loginRatelimit +
+                ", maxHandshakePacketSize=" + maxHandshakePacketSize +
+                ", maxLoginPacketSize=" + maxLoginPacketSize +
+                ", maxPlayPacketSize=" + maxPlayPacketSize +
+                ", pingCacheTtl=" + pingCacheTtl +
+                ", eventLoopStallThreshold=" + eventLoopStallThreshold +
+                ", httpMaxConnections=" + httpMaxConnections +
+                ", httpMaxPendingRequests=" + httpMaxPendingRequests +
+                ", httpConnectTimeout=" + httpConnectTimeout +
+                ", httpReadTimeout=" + httpReadTimeout +
+                ", maxConcurrentLogins=" + maxConcurrentLogins +
+                ", maxQueuedLogins=" + maxQueuedLogins +
                 ", queryEnabled=" + queryEnabled +
                 ", queryPort=" + queryPort +
+                ", queryResponseRefreshInterval=" + queryResponseRefreshInterval +
+                ", queryRequestInterval=" + queryRequestInterval +
+                ", metricsEnabled=" + metricsEnabled +
+                ", metricsBind='" + metricsBind + '\'' +
                 ", motdAsComponent=" + motdAsComponent +
                 ", favicon=" + favicon +
                 ", forwardingSecret=" + ByteBufUtil.hexDump(forwardingSecret) +
@@ -266,6 +460,9 @@ public class VelocityConfiguration {
                 }
             }
 
+            // Configurations written before metrics existed have no [metrics] table.
+            Toml metrics = toml.containsTable("metrics") ? toml.getTable("metrics") : new Toml();
+
             byte[] forwardingSecret = toml.getString("player-info-forwarding-secret", "5up3r53cr3t")
                     .getBytes(StandardCharsets.UTF_8);
 
@@ -280,8 +477,23 @@ public class VelocityConfiguration {
                     toml.getTable("advanced").getLong("compression-threshold", 1024L).intValue(),
                     toml.getTable("advanced").getLong("compression-level", -1L).intValue(),
                     toml.getTable("advanced").getLong("login-ratelimit", 3000L).intValue(),
+                    toml.getTable("advanced").getLong("max-handshake-packet-size", 2048L).intValue(),
+                    toml.getTable("advanced").getLong("max-login-packet-size", 32768L).intValue(),
+                    toml.getTable("advanced").getLong("max-play-packet-size", 2097151L).intValue(),
+                    toml.getTable("advanced").getLong("ping-cache-ttl", 1000L).intValue(),
+                    toml.getTable("advanced").getLong("event-loop-stall-threshold", 1000L).intValue(),
+                    toml.getTable("advanced").getLong("http-max-connections", 8L).intValue(),
+                    toml.getTable("advanced").getLong("http-max-pending-requests", 256L).intValue(),
+                    toml.getTable("advanced").getLong("http-connect-timeout", 5000L).intValue(),
+                    toml.getTable("advanced").getLong("http-read-timeout", 10000L).intValue(),
+                    toml.getTable("advanced").getLong("max-concurrent-logins", 256L).intValue(),
+                    toml.getTable("advanced").getLong("max-queued-logins", 4096L).intValue(),
                     toml.getTable("query").getBoolean("enabled", false),
                     toml.getTable("query").getLong("port", 25577L).intValue(),
+                    toml.getTable("query").getLong("response-refresh-interval", 1000L).intValue(),
+                    toml.getTable("query").getLong("request-interval", 100L).intValue(),
+                    metrics.getBoolean("enabled", false),
+                    metrics.getString("bind", "127.0.0.1:25590"),
                     forwardingSecret);
         }
     }
@@ -23,6 +23,7 @@ import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 
 import java.security.GeneralSecurityException;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.velocitypowered.proxy.network.Connections.CIPHER_DECODER;
 import static com.velocitypowered.proxy.network.Connections.CIPHER_ENCODER;
@@ -39,12 +40,22 @@ import static com.velocitypowered.proxy.network.Connections.MINECRAFT_ENCODER;
  */
 public class MinecraftConnection extends ChannelInboundHandlerAdapter {
     private static final Logger logger = LogManager.getLogger(MinecraftConnection.class);
+    /**
+     * The maximum number of delayed writes that may be queued on a connection before we flush it anyway.
+     */
+    private static final int MAX_PENDING_WRITES = 64;
+    private static final LongAdder delayedWrites = new LongAdder();
+    private static final LongAdder flushesSaved = new LongAdder();
 
     private final Channel channel;
     private StateRegistry state;
     private MinecraftSessionHandler sessionHandler;
     private int protocolVersion;
+    private int compressionThreshold = -1;
     private MinecraftConnectionAssociation association;
+    // Only touched on the channel's event loop. Writes from other threads don't count towards it, as they are queued
+    // onto the loop as tasks anyway.
+    private int pendingWrites;
 
     public MinecraftConnection(Channel channel) {
         this.channel = channel;
@@ -83,6 +94,19 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
             } finally {
                 ReferenceCountUtil.release(msg);
             }
+        } else if (msg instanceof CompressedFrame) {
+            try {
+                sessionHandler.handleCompressedFrame((CompressedFrame) msg);
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        if (sessionHandler != null) {
+            sessionHandler.readCompleted();
         }
     }
 
@@ -105,18 +129,37 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
 
     public void write(Object msg) {
         if (channel.isActive()) {
+            if (channel.eventLoop().inEventLoop()) {
+                flushesSaved.add(pendingWrites);
+                pendingWrites = 0;
+            }
             channel.writeAndFlush(msg, channel.voidPromise());
         }
     }
 
+    /**
+     * Writes the message without flushing it. The caller is responsible for calling {@link #flush()} later, although
+     * the connection will be flushed anyway if too many writes are pending.
+     * @param msg the message to write
+     */
     public void delayedWrite(Object msg) {
         if (channel.isActive()) {
             channel.write(msg, channel.voidPromise());
+            delayedWrites.increment();
+            if (channel.eventLoop().inEventLoop() && ++pendingWrites >= MAX_PENDING_WRITES) {
+                flush();
+            }
         }
     }
 
     public void flush() {
         if (channel.isActive()) {
+            if (channel.eventLoop().inEventLoop()) {
+                if (pendingWrites > 1) {
+                    flushesSaved.add(pendingWrites - 1);
+                }
+                pendingWrites = 0;
+            }
             channel.flush();
         }
     }
@@ -147,6 +190,7 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
 
     public void setState(StateRegistry state) {
         this.state = state;
+        this.channel.pipeline().get(MinecraftVarintFrameDecoder.class).setState(state);
         this.channel.pipeline().get(MinecraftEncoder.class).setState(state);
         this.channel.pipeline().get(MinecraftDecoder.class).setState(state);
     }
@@ -183,16 +227,30 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
         Preconditions.checkState(!isClosed(), "Connection is closed.");
     }
 
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
     public void setCompressionThreshold(int threshold) {
+        int level = threshold == -1 ? -1 : VelocityServer.getServer().getConfiguration().getCompressionLevel();
+        setCompressionThreshold(threshold, level);
+    }
+
+    /**
+     * Sets the compression threshold, compressing at the given level rather than the one configured for the proxy.
+     * @param threshold the threshold, or {@code -1} to disable compression
+     * @param level the zlib compression level
+     */
+    public void setCompressionThreshold(int threshold, int level) {
         ensureOpen();
 
+        this.compressionThreshold = threshold;
         if (threshold == -1) {
             channel.pipeline().remove(COMPRESSION_DECODER);
             channel.pipeline().remove(COMPRESSION_ENCODER);
             return;
         }
 
-        int level = VelocityServer.getServer().getConfiguration().getCompressionLevel();
         VelocityCompressor compressor = Natives.compressor.get().create(level);
         MinecraftCompressEncoder encoder = new MinecraftCompressEncoder(threshold, compressor);
         MinecraftCompressDecoder decoder = new MinecraftCompressDecoder(threshold, compressor);
@@ -201,6 +259,21 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
         channel.pipeline().addBefore(MINECRAFT_ENCODER, COMPRESSION_ENCODER, encoder);
     }
 
+    /**
+     * Relays packets the proxy does not need to inspect as {@link CompressedFrame}s, so that they can be forwarded
+     * without being inflated and compressed again. Only use this when every connection the frames are forwarded to
+     * uses the same compression threshold as this one. Relayed frames can't be rewritten either, so this must not be
+     * used while entity IDs are remapped (see
+     * {@link com.velocitypowered.proxy.protocol.remap.EntityIdRemapper#getMapper(int, int)}).
+     */
+    public void enableCompressionPassthrough() {
+        ensureOpen();
+        Preconditions.checkState(compressionThreshold != -1, "Compression is not enabled");
+
+        channel.pipeline().get(MinecraftCompressDecoder.class)
+                .enablePassthrough(channel.pipeline().get(MinecraftDecoder.class));
+    }
+
     public void enableEncryption(byte[] secret) throws GeneralSecurityException {
         ensureOpen();
 
@@ -213,6 +286,23 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
         channel.pipeline().addBefore(FRAME_ENCODER, CIPHER_ENCODER, new MinecraftCipherEncoder(encryptionCipher));
     }
 
+    /**
+     * Returns the number of writes made using {@link #delayedWrite(Object)} across all connections.
+     * @return the number of delayed writes
+     */
+    public static long getDelayedWrites() {
+        return delayedWrites.sum();
+    }
+
+    /**
+     * Returns the number of flushes (and thus write system calls) avoided by batching writes together across all
+     * connections.
+     * @return the number of flushes saved
+     */
+    public static long getFlushesSaved() {
+        return flushesSaved.sum();
+    }
+
     public MinecraftConnectionAssociation getAssociation() {
         return association;
     }
@@ -1,6 +1,7 @@
 package com.velocitypowered.proxy.connection;
 
 import com.velocitypowered.proxy.protocol.MinecraftPacket;
+import com.velocitypowered.proxy.protocol.netty.CompressedFrame;
 import io.netty.buffer.ByteBuf;
 
 public interface MinecraftSessionHandler {
@@ -10,6 +11,18 @@ public interface MinecraftSessionHandler {
         // No-op: we'll release the buffer later.
     }
 
+    default void handleCompressedFrame(CompressedFrame frame) {
+        // No-op: we'll release the frame later.
+    }
+
+    /**
+     * Called once the connection has finished processing the current batch of packets read from the network. Packets
+     * forwarded using delayed writes should be flushed here.
+     */
+    default void readCompleted() {
+
+    }
+
     default void connected() {
 
     }
@@ -6,4 +6,5 @@ public class VelocityConstants {
     }
 
     public static final String VELOCITY_IP_FORWARDING_CHANNEL = "velocity:player_info";
+    public static final String VELOCITY_LOGIN_QUEUE_CHANNEL = "velocity:login_queue";
 }
@@ -1,5 +1,6 @@
 package com.velocitypowered.proxy.connection.backend;
 
+import com.google.common.base.Preconditions;
 import com.velocitypowered.api.event.player.ServerConnectedEvent;
 import com.velocitypowered.api.proxy.messages.ChannelSide;
 import com.velocitypowered.api.proxy.messages.MessageHandler;
@@ -7,7 +8,9 @@ import com.velocitypowered.proxy.VelocityServer;
 import com.velocitypowered.proxy.connection.client.ClientPlaySessionHandler;
 import com.velocitypowered.proxy.protocol.MinecraftPacket;
 import com.velocitypowered.proxy.protocol.ProtocolConstants;
+import com.velocitypowered.proxy.protocol.netty.CompressedFrame;
 import com.velocitypowered.proxy.protocol.packet.*;
+import com.velocitypowered.proxy.protocol.remap.NoopEntityIdRemapper;
 import com.velocitypowered.proxy.connection.MinecraftSessionHandler;
 import com.velocitypowered.proxy.protocol.util.PluginMessageUtil;
 import io.netty.buffer.ByteBuf;
@@ -39,7 +42,7 @@ public class BackendPlaySessionHandler implements MinecraftSessionHandler {
         if (packet instanceof KeepAlive) {
             // Forward onto the player
             playerHandler.setLastPing(((KeepAlive) packet).getRandomId());
-            connection.getPlayer().getConnection().write(packet);
+            connection.getPlayer().getConnection().delayedWrite(packet);
         } else if (packet instanceof Disconnect) {
             Disconnect original = (Disconnect) packet;
             connection.getPlayer().handleConnectionException(connection.getServerInfo(), original);
@@ -55,7 +58,7 @@ public class BackendPlaySessionHandler implements MinecraftSessionHandler {
                     playerHandler.getServerBossBars().remove(bossBar.getUuid());
                     break;
             }
-            connection.getPlayer().getConnection().write(packet);
+            connection.getPlayer().getConnection().delayedWrite(packet);
         } else if (packet instanceof PluginMessage) {
             PluginMessage pm = (PluginMessage) packet;
             if (!canForwardPluginMessage(pm)) {
@@ -63,18 +66,18 @@ public class BackendPlaySessionHandler implements MinecraftSessionHandler {
             }
 
             if (PluginMessageUtil.isMCBrand(pm)) {
-                connection.getPlayer().getConnection().write(PluginMessageUtil.rewriteMCBrand(pm));
+                connection.getPlayer().getConnection().delayedWrite(PluginMessageUtil.rewriteMCBrand(pm));
                 return;
             }
 
             MessageHandler.ForwardStatus status = VelocityServer.getServer().getChannelRegistrar().handlePluginMessage(
                     connection, ChannelSide.FROM_SERVER, pm);
             if (status == MessageHandler.ForwardStatus.FORWARD) {
-                connection.getPlayer().getConnection().write(pm);
+                connection.getPlayer().getConnection().delayedWrite(pm);
             }
         } else {
             // Just forward the packet on. We don't have anything to handle at this time.
-            connection.getPlayer().getConnection().write(packet);
+            connection.getPlayer().getConnection().delayedWrite(packet);
         }
     }
 
@@ -90,7 +93,31 @@ public class BackendPlaySessionHandler implements MinecraftSessionHandler {
         ClientPlaySessionHandler playerHandler =
                 (ClientPlaySessionHandler) connection.getPlayer().getConnection().getSessionHandler();
         ByteBuf remapped = playerHandler.getIdRemapper().remap(buf, ProtocolConstants.Direction.CLIENTBOUND);
-        connection.getPlayer().getConnection().write(remapped);
+        connection.getPlayer().getConnection().delayedWrite(remapped);
+    }
+
+    @Override
+    public void handleCompressedFrame(CompressedFrame frame) {
+        if (!connection.getPlayer().isActive()) {
+            // Connection was left open accidentally. Close it so as to avoid "You logged in from another location"
+            // errors.
+            connection.getMinecraftConnection().close();
+            return;
+        }
+
+        // The player uses the same compression threshold as this server, so the frame can be relayed as-is. Unlike
+        // handleUnknown, the frame can't go through the entity ID remapper, so passthrough relies on it being a no-op.
+        ClientPlaySessionHandler playerHandler =
+                (ClientPlaySessionHandler) connection.getPlayer().getConnection().getSessionHandler();
+        Preconditions.checkState(playerHandler.getIdRemapper() == NoopEntityIdRemapper.INSTANCE,
+                "Compression passthrough can't be used while entity IDs are remapped");
+        connection.getPlayer().getConnection().delayedWrite(frame.retain());
+    }
+
+    @Override
+    public void readCompleted() {
+        // Send everything we forwarded from this batch to the player at once.
+        connection.getPlayer().getConnection().flush();
     }
 
     @Override
@@ -65,6 +65,11 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
         } else if (packet instanceof SetCompression) {
             SetCompression sc = (SetCompression) packet;
             connection.getMinecraftConnection().setCompressionThreshold(sc.getThreshold());
+            if (sc.getThreshold() != -1 &&
+                    sc.getThreshold() == connection.getPlayer().getConnection().getCompressionThreshold()) {
+                // Packets we only forward are already compressed the way the player expects them.
+                connection.getMinecraftConnection().enableCompressionPassthrough();
+            }
         } else if (packet instanceof ServerLoginSuccess) {
             if (VelocityServer.getServer().getConfiguration().getPlayerInfoForwardingMode() == PlayerInfoForwarding.MODERN &&
                     !informationForwarded) {
@@ -51,7 +51,8 @@ public class VelocityServerConnection implements MinecraftConnectionAssociation,
 
     public CompletableFuture<ConnectionRequestBuilder.Result> connect() {
         CompletableFuture<ConnectionRequestBuilder.Result> result = new CompletableFuture<>();
-        server.initializeGenericBootstrap()
+        // Use the player's event loop, so that both halves of the relay are handled by the same thread.
+        server.initializeGenericBootstrap(proxyPlayer.getConnection().getChannel().eventLoop())
                 .handler(new ChannelInitializer<Channel>() {
                     @Override
                     protected void initChannel(Channel ch) throws Exception {
@@ -4,6 +4,7 @@ import com.velocitypowered.api.event.connection.DisconnectEvent;
 import com.velocitypowered.api.proxy.messages.ChannelSide;
 import com.velocitypowered.api.proxy.messages.MessageHandler;
 import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.connection.backend.VelocityServerConnection;
 import com.velocitypowered.proxy.protocol.MinecraftPacket;
 import com.velocitypowered.proxy.protocol.ProtocolConstants;
 import com.velocitypowered.proxy.protocol.packet.*;
@@ -76,7 +77,7 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
             if (msg.startsWith("/")) {
                 try {
                     if (!VelocityServer.getServer().getCommandManager().execute(player, msg.substring(1))) {
-                        player.getConnectedServer().getMinecraftConnection().write(chat);
+                        player.getConnectedServer().getMinecraftConnection().delayedWrite(chat);
                     }
                 } catch (Exception e) {
                     logger.info("Exception occurred while running command for {}", player.getProfile().getName(), e);
@@ -84,7 +85,7 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
                     return;
                 }
             } else {
-                player.getConnectedServer().getMinecraftConnection().write(chat);
+                player.getConnectedServer().getMinecraftConnection().delayedWrite(chat);
             }
             return;
         }
@@ -108,7 +109,7 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
 
                         player.getConnection().write(response);
                     } else {
-                        player.getConnectedServer().getMinecraftConnection().write(packet);
+                        player.getConnectedServer().getMinecraftConnection().delayedWrite(packet);
                     }
                 } catch (Exception e) {
                     logger.error("Unable to provide tab list completions for " + player.getUsername() + " for command '" + req.getCommand() + "'", e);
@@ -123,13 +124,22 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
         }
 
         // If we don't want to handle this packet, just forward it on.
-        player.getConnectedServer().getMinecraftConnection().write(packet);
+        player.getConnectedServer().getMinecraftConnection().delayedWrite(packet);
     }
 
     @Override
     public void handleUnknown(ByteBuf buf) {
         ByteBuf remapped = idRemapper.remap(buf, ProtocolConstants.Direction.SERVERBOUND);
-        player.getConnectedServer().getMinecraftConnection().write(remapped);
+        player.getConnectedServer().getMinecraftConnection().delayedWrite(remapped);
+    }
+
+    @Override
+    public void readCompleted() {
+        // Send everything we forwarded from this batch to the server at once.
+        VelocityServerConnection serverConnection = player.getConnectedServer();
+        if (serverConnection != null) {
+            serverConnection.getMinecraftConnection().flush();
+        }
     }
 
     @Override
@@ -223,7 +233,7 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
 
             if (actuallyRegistered.size() > 0) {
                 PluginMessage newRegisterPacket = PluginMessageUtil.constructChannelsPacket(packet.getChannel(), actuallyRegistered);
-                player.getConnectedServer().getMinecraftConnection().write(newRegisterPacket);
+                player.getConnectedServer().getMinecraftConnection().delayedWrite(newRegisterPacket);
             }
 
             return;
@@ -235,7 +245,7 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
         }
 
         if (PluginMessageUtil.isMCBrand(packet)) {
-            player.getConnectedServer().getMinecraftConnection().write(PluginMessageUtil.rewriteMCBrand(packet));
+            player.getConnectedServer().getMinecraftConnection().delayedWrite(PluginMessageUtil.rewriteMCBrand(packet));
             return;
         }
 
@@ -243,7 +253,7 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
                 player, ChannelSide.FROM_CLIENT, packet);
         if (status == MessageHandler.ForwardStatus.FORWARD) {
             // We're going to forward on the original packet.
-            player.getConnectedServer().getMinecraftConnection().write(packet);
+            player.getConnectedServer().getMinecraftConnection().delayedWrite(packet);
         }
     }
 
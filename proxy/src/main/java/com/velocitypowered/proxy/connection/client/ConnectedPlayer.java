@@ -113,7 +113,10 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player {
     public void sendMessage(@NonNull Component component, @NonNull MessagePosition position) {
         Preconditions.checkNotNull(component, "component");
         Preconditions.checkNotNull(position, "position");
+        connection.write(createChat(component, position));
+    }
 
+    static Chat createChat(Component component, MessagePosition position) {
         byte pos = (byte) position.ordinal();
         String json;
         if (position == MessagePosition.ACTION_BAR) {
@@ -129,7 +132,7 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player {
         Chat chat = new Chat();
         chat.setType(pos);
         chat.setMessage(json);
-        connection.write(chat);
+        return chat;
     }
 
     @Override
@@ -80,18 +80,31 @@ public class HandshakeSessionHandler implements MinecraftSessionHandler {
 
     private void handleLegacy(MinecraftPacket packet) {
         if (packet instanceof LegacyPing) {
-            VelocityConfiguration configuration = VelocityServer.getServer().getConfiguration();
+            VelocityServer server = VelocityServer.getServer();
+            ServerListPingCache cache = server.getServerListPingCache();
+            LegacyDisconnect cached = cache.getLegacyResponse();
+            if (cached != null) {
+                connection.closeWith(cached);
+                return;
+            }
+
+            VelocityConfiguration configuration = server.getConfiguration();
+            int playerCount = server.getPlayerCount();
             ServerPing ping = new ServerPing(
                     new ServerPing.Version(ProtocolConstants.MAXIMUM_GENERIC_VERSION, "Velocity " + ProtocolConstants.SUPPORTED_GENERIC_VERSION_STRING),
-                    new ServerPing.Players(VelocityServer.getServer().getPlayerCount(), configuration.getShowMaxPlayers(), ImmutableList.of()),
+                    new ServerPing.Players(playerCount, configuration.getShowMaxPlayers(), ImmutableList.of()),
                     configuration.getMotdComponent(),
                     null
             );
             ProxyPingEvent event = new ProxyPingEvent(new LegacyInboundConnection(connection), ping);
-            VelocityServer.getServer().getEventManager().fire(event)
+            server.getEventManager().fire(event)
                     .thenRunAsync(() -> {
                         // The disconnect packet is the same as the server response one.
-                        connection.closeWith(LegacyDisconnect.fromPingResponse(LegacyPingResponse.from(event.getPing())));
+                        LegacyDisconnect response = LegacyDisconnect.fromPingResponse(LegacyPingResponse.from(event.getPing()));
+                        if (event.isCacheable()) {
+                            cache.putLegacyResponse(playerCount, response);
+                        }
+                        connection.closeWith(response);
                     }, connection.getChannel().eventLoop());
         } else if (packet instanceof LegacyHandshake) {
             connection.closeWith(LegacyDisconnect.from(TextComponent.of("Your client is old, please upgrade!", TextColor.RED)));
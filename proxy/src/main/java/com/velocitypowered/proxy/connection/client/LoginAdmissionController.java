@@ -0,0 +1,155 @@
+package com.velocitypowered.proxy.connection.client;
+
+import com.google.common.base.Preconditions;
+import com.velocitypowered.proxy.metrics.ProxyMetrics;
+import com.velocitypowered.proxy.metrics.ProxyMetrics.LoginStage;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits how many players may be logging in at once. Players beyond the limit wait in a bounded queue and are let in
+ * in the order they arrived as earlier logins finish, so a mass reconnect is spread out instead of hitting the proxy
+ * and Mojang's session server all at once.
+ */
+public class LoginAdmissionController {
+    private final int maxConcurrentLogins;
+    private final int maxQueuedLogins;
+    // A linked set keeps arrival order while letting players who give up leave from the middle of the queue cheaply.
+    private final Set<Ticket> queue = new LinkedHashSet<>();
+    private int inProgress;
+    // Queued tickets are numbered in arrival order, so a position is the distance from the number of the head. Players
+    // leaving from the middle of the queue leave gaps, which are closed with one pass over the queue the next time a
+    // position is asked for, rather than walking the queue for every position.
+    private long headNumber;
+    private long nextNumber;
+    private boolean renumber;
+
+    public LoginAdmissionController(int maxConcurrentLogins, int maxQueuedLogins) {
+        Preconditions.checkArgument(maxConcurrentLogins > 0, "maxConcurrentLogins");
+        Preconditions.checkArgument(maxQueuedLogins >= 0, "maxQueuedLogins");
+        this.maxConcurrentLogins = maxConcurrentLogins;
+        this.maxQueuedLogins = maxQueuedLogins;
+    }
+
+    /**
+     * Asks to start a login. If the limit hasn't been reached, {@code onAdmitted} runs straight away on the calling
+     * thread. Otherwise the login is queued and {@code onAdmitted} runs on whichever thread releases the slot it takes.
+     * @param onAdmitted called once the login may proceed
+     * @return the ticket for the login, which must be released once the login ends however it ends, or {@code null} if
+     *         the queue is full
+     */
+    public @Nullable Ticket enqueue(Runnable onAdmitted) {
+        Preconditions.checkNotNull(onAdmitted, "onAdmitted");
+        Ticket ticket;
+        synchronized (this) {
+            if (inProgress < maxConcurrentLogins && queue.isEmpty()) {
+                inProgress++;
+                ticket = new Ticket(onAdmitted);
+                ticket.admitted = true;
+            } else if (queue.size() >= maxQueuedLogins) {
+                ProxyMetrics.LOGINS_REJECTED_QUEUE_FULL.increment();
+                return null;
+            } else {
+                ticket = new Ticket(onAdmitted);
+                ticket.number = nextNumber++;
+                queue.add(ticket);
+                return ticket;
+            }
+        }
+        ticket.admit();
+        return ticket;
+    }
+
+    private void release(Ticket ticket) {
+        Ticket next = null;
+        synchronized (this) {
+            if (ticket.admitted) {
+                Iterator<Ticket> it = queue.iterator();
+                if (it.hasNext()) {
+                    // Hand the slot straight over, so a login can't sneak in ahead of the queue.
+                    next = it.next();
+                    it.remove();
+                    next.admitted = true;
+                    headNumber = next.number + 1;
+                } else {
+                    inProgress--;
+                }
+            } else if (queue.remove(ticket)) {
+                renumber = true;
+            }
+        }
+        if (next != null) {
+            next.admit();
+        }
+    }
+
+    private synchronized int getPosition(Ticket ticket) {
+        if (ticket.admitted || !queue.contains(ticket)) {
+            return 0;
+        }
+        if (renumber) {
+            headNumber = 0;
+            nextNumber = 0;
+            for (Ticket queued : queue) {
+                queued.number = nextNumber++;
+            }
+            renumber = false;
+        }
+        return (int) (ticket.number - headNumber) + 1;
+    }
+
+    public synchronized int getInProgress() {
+        return inProgress;
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * A login admitted by, or waiting in the queue of, a {@link LoginAdmissionController}.
+     */
+    public final class Ticket {
+        private final Runnable onAdmitted;
+        private final long queuedNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private boolean admitted; // guarded by the controller
+        private long number; // guarded by the controller
+
+        private Ticket(Runnable onAdmitted) {
+            this.onAdmitted = onAdmitted;
+        }
+
+        private void admit() {
+            LoginStage.QUEUE.recordSince(queuedNanos);
+            onAdmitted.run();
+        }
+
+        public boolean isAdmitted() {
+            synchronized (LoginAdmissionController.this) {
+                return admitted;
+            }
+        }
+
+        /**
+         * Returns the position of this login in the queue.
+         * @return the position, starting at 1, or 0 if the login has been admitted or has left the queue
+         */
+        public int getPosition() {
+            return LoginAdmissionController.this.getPosition(this);
+        }
+
+        /**
+         * Gives up this login's slot, or its place in the queue. Only the first call has any effect.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                LoginAdmissionController.this.release(this);
+            }
+        }
+    }
+}
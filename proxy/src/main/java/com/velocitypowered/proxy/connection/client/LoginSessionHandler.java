@@ -9,8 +9,11 @@ import com.velocitypowered.api.event.player.GameProfileRequestEvent;
 import com.velocitypowered.api.proxy.InboundConnection;
 import com.velocitypowered.api.proxy.server.ServerInfo;
 import com.velocitypowered.proxy.connection.VelocityConstants;
+import com.velocitypowered.proxy.metrics.ProxyMetrics;
+import com.velocitypowered.proxy.metrics.ProxyMetrics.LoginStage;
 import com.velocitypowered.api.util.GameProfile;
 import com.velocitypowered.proxy.protocol.MinecraftPacket;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
 import com.velocitypowered.proxy.protocol.ProtocolConstants;
 import com.velocitypowered.proxy.protocol.StateRegistry;
 import com.velocitypowered.proxy.protocol.packet.*;
@@ -21,6 +24,7 @@ import com.velocitypowered.proxy.util.EncryptionUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.EventLoop;
 import net.kyori.text.TextComponent;
 import net.kyori.text.format.TextColor;
 import org.apache.logging.log4j.LogManager;
@@ -33,18 +37,28 @@ import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 public class LoginSessionHandler implements MinecraftSessionHandler {
     private static final Logger logger = LogManager.getLogger(LoginSessionHandler.class);
     private static final String MOJANG_SERVER_AUTH_URL =
             "https://sessionserver.mojang.com/session/minecraft/hasJoined?username=%s&serverId=%s&ip=%s";
+    // Well inside the client's 30 second read timeout, even if a ping is delayed.
+    private static final long QUEUE_PING_INTERVAL_SECONDS = 5;
     
     private final MinecraftConnection inbound;
     private final InboundConnection apiInbound;
     private ServerLogin login;
     private byte[] verify;
     private int playerInfoId;
+    private boolean awaitingPlayerInfo;
+    private long loginStartNanos;
+    private LoginAdmissionController.Ticket admission;
+    private ScheduledFuture<?> queuePing;
+    private int queuePingId;
 
     public LoginSessionHandler(MinecraftConnection inbound, InboundConnection apiInbound) {
         this.inbound = Preconditions.checkNotNull(inbound, "inbound");
@@ -55,7 +69,8 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
     public void handle(MinecraftPacket packet) {
         if (packet instanceof LoginPluginResponse) {
             LoginPluginResponse lpr = (LoginPluginResponse) packet;
-            if (lpr.getId() == playerInfoId) {
+            if (awaitingPlayerInfo && lpr.getId() == playerInfoId) {
+                awaitingPlayerInfo = false;
                 if (lpr.isSuccess()) {
                     // Uh oh, someone's trying to run Velocity behind Velocity. We don't want that happening.
                     inbound.closeWith(Disconnect.create(
@@ -67,65 +82,155 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
                 }
             }
         } else if (packet instanceof ServerLogin) {
+            if (this.login != null) {
+                // Each login start would otherwise take another place in the login queue.
+                throw new IllegalStateException("Client sent more than one login start");
+            }
             this.login = (ServerLogin) packet;
+            this.loginStartNanos = System.nanoTime();
 
-            if (inbound.getProtocolVersion() >= ProtocolConstants.MINECRAFT_1_13) {
-                LoginPluginMessage message = new LoginPluginMessage();
-                playerInfoId = ThreadLocalRandom.current().nextInt();
-                message.setId(playerInfoId);
-                message.setChannel(VelocityConstants.VELOCITY_IP_FORWARDING_CHANNEL);
-                message.setData(Unpooled.EMPTY_BUFFER);
-                inbound.write(message);
-            } else {
-                beginPreLogin();
+            EventLoop eventLoop = inbound.getChannel().eventLoop();
+            admission = VelocityServer.getServer().getLoginAdmission().enqueue(() -> {
+                if (eventLoop.inEventLoop()) {
+                    startLogin();
+                } else {
+                    eventLoop.execute(this::startLogin);
+                }
+            });
+            if (admission == null) {
+                inbound.closeWith(Disconnect.create(TextComponent.of(
+                        "Too many players are logging in right now. Please try again in a moment.", TextColor.RED)));
+            } else if (!admission.isAdmitted() && inbound.getProtocolVersion() >= ProtocolConstants.MINECRAFT_1_13) {
+                // Older clients can't be sent anything while they wait, so they time out if the queue is slow.
+                queuePing = eventLoop.scheduleAtFixedRate(this::sendQueuePosition, 0, QUEUE_PING_INTERVAL_SECONDS,
+                        TimeUnit.SECONDS);
             }
         } else if (packet instanceof EncryptionResponse) {
+            EncryptionResponse response = (EncryptionResponse) packet;
+            byte[] expectedVerify = this.verify;
+            if (expectedVerify == null) {
+                // Either we never asked for one, or this is another response, which would take another crypto task.
+                throw new IllegalStateException("Client sent an unexpected encryption response");
+            }
+            this.verify = null;
+
+            long decryptionStart = System.nanoTime();
             try {
-                KeyPair serverKeyPair = VelocityServer.getServer().getServerKeyPair();
-                EncryptionResponse response = (EncryptionResponse) packet;
-                byte[] decryptedVerifyToken = EncryptionUtils.decryptRsa(serverKeyPair, response.getVerifyToken());
-                if (!Arrays.equals(verify, decryptedVerifyToken)) {
-                    throw new IllegalStateException("Unable to successfully decrypt the verification token.");
-                }
+                // RSA decryption is slow enough that, during a burst of logins, doing it here would stall every other
+                // connection on this event loop.
+                VelocityServer.getServer().getCryptoService().execute(() -> decryptResponse(response, expectedVerify,
+                        decryptionStart));
+            } catch (RejectedExecutionException e) {
+                ProxyMetrics.LOGINS_REJECTED_BUSY.increment();
+                inbound.closeWith(Disconnect.create(TextComponent.of(
+                        "The proxy is handling too many logins right now. Please try again in a moment.", TextColor.RED)));
+            }
+        }
+    }
 
-                byte[] decryptedSharedSecret = EncryptionUtils.decryptRsa(serverKeyPair, response.getSharedSecret());
-                String serverId = EncryptionUtils.generateServerId(decryptedSharedSecret, serverKeyPair.getPublic());
+    private void sendQueuePosition() {
+        if (admission.isAdmitted() || inbound.isClosed()) {
+            return;
+        }
+        // The client answers with an empty response, which keeps both ends from timing the connection out.
+        ByteBuf data = Unpooled.buffer(5);
+        ProtocolUtils.writeVarInt(data, admission.getPosition());
+        LoginPluginMessage message = new LoginPluginMessage();
+        message.setId(queuePingId++);
+        message.setChannel(VelocityConstants.VELOCITY_LOGIN_QUEUE_CHANNEL);
+        message.setData(data);
+        inbound.write(message);
+    }
 
-                String playerIp = ((InetSocketAddress) inbound.getChannel().remoteAddress()).getHostString();
-                VelocityServer.getServer().getHttpClient()
-                        .get(new URL(String.format(MOJANG_SERVER_AUTH_URL, login.getUsername(), serverId, playerIp)))
-                        .thenAcceptAsync(profileResponse -> {
-                            if (inbound.isClosed()) {
-                                // The player disconnected after we authenticated them.
-                                return;
-                            }
-                            
-                            try {
-                                inbound.enableEncryption(decryptedSharedSecret);
-                            } catch (GeneralSecurityException e) {
-                                throw new RuntimeException(e);
-                            }
+    private void startLogin() {
+        if (queuePing != null) {
+            queuePing.cancel(false);
+            queuePing = null;
+        }
+        if (inbound.isClosed()) {
+            // The player disconnected while they were queued, which gave up their slot.
+            return;
+        }
+
+        if (inbound.getProtocolVersion() >= ProtocolConstants.MINECRAFT_1_13) {
+            LoginPluginMessage message = new LoginPluginMessage();
+            do {
+                playerInfoId = ThreadLocalRandom.current().nextInt();
+            } while (playerInfoId >= 0 && playerInfoId < queuePingId); // a late answer to a ping mustn't match
+            message.setId(playerInfoId);
+            message.setChannel(VelocityConstants.VELOCITY_IP_FORWARDING_CHANNEL);
+            message.setData(Unpooled.EMPTY_BUFFER);
+            awaitingPlayerInfo = true;
+            inbound.write(message);
+        } else {
+            beginPreLogin();
+        }
+    }
+
+    private void decryptResponse(EncryptionResponse response, byte[] expectedVerify, long decryptionStart) {
+        if (inbound.isClosed()) {
+            // The player disconnected while waiting for a crypto worker.
+            return;
+        }
 
-                            initializePlayer(VelocityServer.GSON.fromJson(profileResponse, GameProfile.class), true);
-                        }, inbound.getChannel().eventLoop())
-                        .exceptionally(exception -> {
-                            logger.error("Unable to enable encryption", exception);
-                            inbound.close();
-                            return null;
-                        });
-            } catch (GeneralSecurityException e) {
-                logger.error("Unable to enable encryption", e);
-                inbound.close();
-            } catch (MalformedURLException e) {
-                throw new AssertionError(e);
+        byte[] decryptedSharedSecret;
+        String serverId;
+        try {
+            KeyPair serverKeyPair = VelocityServer.getServer().getServerKeyPair();
+            byte[] decryptedVerifyToken = EncryptionUtils.decryptRsa(serverKeyPair, response.getVerifyToken());
+            if (!Arrays.equals(expectedVerify, decryptedVerifyToken)) {
+                throw new GeneralSecurityException("Unable to successfully decrypt the verification token.");
             }
+
+            decryptedSharedSecret = EncryptionUtils.decryptRsa(serverKeyPair, response.getSharedSecret());
+            serverId = EncryptionUtils.generateServerId(decryptedSharedSecret, serverKeyPair.getPublic());
+        } catch (GeneralSecurityException e) {
+            logger.error("Unable to enable encryption", e);
+            inbound.close();
+            return;
+        }
+        LoginStage.DECRYPTION.recordSince(decryptionStart);
+
+        inbound.getChannel().eventLoop().execute(() -> authenticate(decryptedSharedSecret, serverId));
+    }
+
+    private void authenticate(byte[] decryptedSharedSecret, String serverId) {
+        try {
+            String playerIp = ((InetSocketAddress) inbound.getChannel().remoteAddress()).getHostString();
+            long authenticationStart = System.nanoTime();
+            VelocityServer.getServer().getHttpClient()
+                    .get(new URL(String.format(MOJANG_SERVER_AUTH_URL, login.getUsername(), serverId, playerIp)))
+                    .thenAcceptAsync(profileResponse -> {
+                        LoginStage.AUTHENTICATION.recordSince(authenticationStart);
+                        if (inbound.isClosed()) {
+                            // The player disconnected after we authenticated them.
+                            return;
+                        }
+
+                        try {
+                            inbound.enableEncryption(decryptedSharedSecret);
+                        } catch (GeneralSecurityException e) {
+                            throw new RuntimeException(e);
+                        }
+
+                        initializePlayer(VelocityServer.GSON.fromJson(profileResponse, GameProfile.class), true);
+                    }, inbound.getChannel().eventLoop())
+                    .exceptionally(exception -> {
+                        logger.error("Unable to enable encryption", exception);
+                        inbound.close();
+                        return null;
+                    });
+        } catch (MalformedURLException e) {
+            throw new AssertionError(e);
         }
     }
 
     private void beginPreLogin() {
         PreLoginEvent event = new PreLoginEvent(apiInbound, login.getUsername());
+        long preLoginStart = System.nanoTime();
         VelocityServer.getServer().getEventManager().fire(event)
                 .thenRunAsync(() -> {
+                    LoginStage.PRE_LOGIN.recordSince(preLoginStart);
                     if (inbound.isClosed()) {
                         // The player was disconnected
                         return;
@@ -160,6 +265,7 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
 
     private void initializePlayer(GameProfile profile, boolean onlineMode) {
         GameProfileRequestEvent profileRequestEvent = new GameProfileRequestEvent(apiInbound, profile, onlineMode);
+        long eventsStart = System.nanoTime();
 
         VelocityServer.getServer().getEventManager().fire(profileRequestEvent).thenCompose(profileEvent -> {
             // Initiate a regular connection and move over to it.
@@ -175,6 +281,7 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
                         })
                         // then complete the connection
                         .thenAcceptAsync(event -> {
+                            LoginStage.EVENTS.recordSince(eventsStart);
                             if (inbound.isClosed()) {
                                 // The player was disconnected
                                 return;
@@ -211,6 +318,8 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
 
         inbound.setAssociation(player);
         inbound.setState(StateRegistry.PLAY);
+        LoginStage.TOTAL.recordSince(loginStartNanos);
+        releaseAdmission();
 
         if (!VelocityServer.getServer().registerConnection(player)) {
             inbound.closeWith(Disconnect.create(TextComponent.of("You are already on this proxy!", TextColor.RED)));
@@ -221,6 +330,21 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
         player.createConnectionRequest(toTry.get()).fireAndForget();
     }
 
+    private void releaseAdmission() {
+        if (admission != null) {
+            admission.release();
+        }
+    }
+
+    @Override
+    public void disconnected() {
+        // However the login ended, let the next player in.
+        releaseAdmission();
+        if (queuePing != null) {
+            queuePing.cancel(false);
+        }
+    }
+
     @Override
     public void handleUnknown(ByteBuf buf) {
         throw new IllegalStateException("Unknown data " + ByteBufUtil.hexDump(buf));
@@ -0,0 +1,186 @@
+package com.velocitypowered.proxy.connection.client;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.util.MessagePosition;
+import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.natives.util.Natives;
+import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.connection.MinecraftConnection;
+import com.velocitypowered.proxy.protocol.MinecraftPacket;
+import com.velocitypowered.proxy.protocol.ProtocolConstants;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import com.velocitypowered.proxy.protocol.netty.CompressedFrame;
+import com.velocitypowered.proxy.protocol.packet.HeaderAndFooter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import net.kyori.text.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+
+/**
+ * Sends the same packet to many players, encoding and compressing it only once for every combination of protocol
+ * version and compression threshold. Each player is then written a retained duplicate of the same frame, which the
+ * pipeline never modifies in place.
+ */
+public class PlayerBroadcast {
+    // Setting up a native compressor costs more than compressing a typical announcement, so idle compressors are kept
+    // for the next broadcast. A small shared pool is used rather than one per thread, as threads that die (like idle
+    // scheduler workers) would never free their compressor's native memory.
+    private static final BlockingQueue<PooledCompressor> COMPRESSORS =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    private PlayerBroadcast() {
+        throw new AssertionError();
+    }
+
+    public static void broadcast(Collection<? extends Player> players, Component component, MessagePosition position) {
+        Preconditions.checkNotNull(players, "players");
+        Preconditions.checkNotNull(component, "component");
+        Preconditions.checkNotNull(position, "position");
+        broadcast(players, ConnectedPlayer.createChat(component, position));
+    }
+
+    public static void broadcastHeaderAndFooter(Collection<? extends Player> players, Component header,
+                                                Component footer) {
+        Preconditions.checkNotNull(players, "players");
+        Preconditions.checkNotNull(header, "header");
+        Preconditions.checkNotNull(footer, "footer");
+        broadcast(players, HeaderAndFooter.create(header, footer));
+    }
+
+    private static void broadcast(Collection<? extends Player> players, MinecraftPacket packet) {
+        broadcast(players, packet, VelocityServer.getServer().getConfiguration().getCompressionLevel());
+    }
+
+    @VisibleForTesting
+    static void broadcast(Collection<? extends Player> players, MinecraftPacket packet, int compressionLevel) {
+        Map<Group, List<MinecraftConnection>> groups = new HashMap<>();
+        for (Player player : players) {
+            MinecraftConnection connection = ((ConnectedPlayer) player).getConnection();
+            if (connection.isClosed() || connection.getState() != StateRegistry.PLAY) {
+                continue;
+            }
+            groups.computeIfAbsent(new Group(connection.getProtocolVersion(), connection.getCompressionThreshold()),
+                    group -> new ArrayList<>()).add(connection);
+        }
+
+        PooledCompressor compressor = null;
+        boolean reusable = false;
+        try {
+            for (Map.Entry<Group, List<MinecraftConnection>> entry : groups.entrySet()) {
+                Group group = entry.getKey();
+                if (group.threshold != -1 && compressor == null) {
+                    compressor = acquireCompressor(compressionLevel);
+                }
+
+                ByteBuf frame = encode(packet, group, compressor == null ? null : compressor.compressor);
+                try {
+                    for (MinecraftConnection connection : entry.getValue()) {
+                        // With compression enabled, the compression encoder passes the frame on as it is.
+                        ByteBuf duplicate = frame.retainedDuplicate();
+                        connection.write(group.threshold == -1 ? duplicate : new CompressedFrame(duplicate));
+                    }
+                } finally {
+                    frame.release();
+                }
+            }
+            reusable = true;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Unable to compress broadcast packet", e);
+        } finally {
+            if (compressor != null) {
+                // A compressor that failed part way through may not have been reset, so it isn't used again.
+                if (!reusable || !COMPRESSORS.offer(compressor)) {
+                    compressor.compressor.dispose();
+                }
+            }
+        }
+    }
+
+    private static PooledCompressor acquireCompressor(int level) {
+        PooledCompressor compressor = COMPRESSORS.poll();
+        if (compressor != null && compressor.level != level) {
+            compressor.compressor.dispose();
+            compressor = null;
+        }
+        if (compressor == null) {
+            compressor = new PooledCompressor(level, Natives.compressor.get().create(level));
+        }
+        return compressor;
+    }
+
+    private static ByteBuf encode(MinecraftPacket packet, Group group, VelocityCompressor compressor)
+            throws DataFormatException {
+        ByteBuf encoded = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try {
+            ProtocolUtils.writeVarInt(encoded, StateRegistry.PLAY.CLIENTBOUND.getVersion(group.protocolVersion)
+                    .getPacketId(packet));
+            packet.encode(encoded, ProtocolConstants.Direction.CLIENTBOUND, group.protocolVersion);
+            if (group.threshold == -1) {
+                return encoded.retain();
+            }
+
+            // This matches what MinecraftCompressEncoder does for the connection.
+            int uncompressed = encoded.readableBytes();
+            ByteBuf compressed = PooledByteBufAllocator.DEFAULT.directBuffer();
+            try {
+                if (uncompressed <= group.threshold) {
+                    ProtocolUtils.writeVarInt(compressed, 0);
+                    compressed.writeBytes(encoded);
+                } else {
+                    ProtocolUtils.writeVarInt(compressed, uncompressed);
+                    compressor.deflate(encoded, compressed);
+                }
+                return compressed;
+            } catch (DataFormatException | RuntimeException e) {
+                compressed.release();
+                throw e;
+            }
+        } finally {
+            encoded.release();
+        }
+    }
+
+    private static class PooledCompressor {
+        private final int level;
+        private final VelocityCompressor compressor;
+
+        private PooledCompressor(int level, VelocityCompressor compressor) {
+            this.level = level;
+            this.compressor = compressor;
+        }
+    }
+
+    private static class Group {
+        private final int protocolVersion;
+        private final int threshold;
+
+        private Group(int protocolVersion, int threshold) {
+            this.protocolVersion = protocolVersion;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Group group = (Group) o;
+            return protocolVersion == group.protocolVersion && threshold == group.threshold;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * protocolVersion + threshold;
+        }
+    }
+}
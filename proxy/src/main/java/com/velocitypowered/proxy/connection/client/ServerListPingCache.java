@@ -0,0 +1,90 @@
+package com.velocitypowered.proxy.connection.client;
+
+import com.velocitypowered.proxy.protocol.ProtocolConstants;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import com.velocitypowered.proxy.protocol.packet.LegacyDisconnect;
+import com.velocitypowered.proxy.protocol.packet.StatusResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntSupplier;
+
+/**
+ * Caches the responses to server list pings, so that a flood of pings doesn't require firing
+ * {@link com.velocitypowered.api.event.proxy.ProxyPingEvent} and serializing the same response again for each one.
+ * Responses are kept for a short while, and are dropped as soon as the player count changes.
+ */
+public class ServerListPingCache {
+    private final long ttlNanos;
+    private final IntSupplier playerCount;
+    private final ConcurrentMap<Integer, Entry<ByteBuf>> statusResponses = new ConcurrentHashMap<>();
+    private volatile Entry<LegacyDisconnect> legacyResponse;
+
+    public ServerListPingCache(int ttlMillis, IntSupplier playerCount) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.playerCount = playerCount;
+    }
+
+    /**
+     * Returns the cached status response for the specified protocol version, if any. The response is an encoded
+     * {@link StatusResponse} packet which may be written to the connection as it is.
+     * @param protocolVersion the protocol version shown in the response
+     * @return the encoded response, or {@code null} if there is no usable response
+     */
+    public ByteBuf getStatusResponse(int protocolVersion) {
+        Entry<ByteBuf> entry = statusResponses.get(protocolVersion);
+        // The buffer is shared by all connections, so only hand out duplicates that can't free it.
+        return isUsable(entry) ? entry.value.duplicate() : null;
+    }
+
+    /**
+     * Encodes and caches the status response for the specified protocol version.
+     * @param protocolVersion the protocol version shown in the response
+     * @param playerCount the player count used to build the response
+     * @param status the JSON status
+     * @return the encoded response, which should be written to the connection
+     */
+    public ByteBuf putStatusResponse(int protocolVersion, int playerCount, String status) {
+        StatusResponse response = new StatusResponse();
+        response.setStatus(status);
+        ByteBuf buf = Unpooled.buffer();
+        ProtocolUtils.writeVarInt(buf, StateRegistry.STATUS.CLIENTBOUND.getVersion(protocolVersion).getPacketId(response));
+        response.encode(buf, ProtocolConstants.Direction.CLIENTBOUND, protocolVersion);
+
+        ByteBuf shared = Unpooled.unreleasableBuffer(buf.asReadOnly());
+        if (ttlNanos > 0) {
+            statusResponses.put(protocolVersion, new Entry<>(shared, playerCount, System.nanoTime() + ttlNanos));
+        }
+        return shared.duplicate();
+    }
+
+    public LegacyDisconnect getLegacyResponse() {
+        Entry<LegacyDisconnect> entry = legacyResponse;
+        return isUsable(entry) ? entry.value : null;
+    }
+
+    public void putLegacyResponse(int playerCount, LegacyDisconnect response) {
+        if (ttlNanos > 0) {
+            legacyResponse = new Entry<>(response, playerCount, System.nanoTime() + ttlNanos);
+        }
+    }
+
+    private boolean isUsable(Entry<?> entry) {
+        return entry != null && entry.playerCount == playerCount.getAsInt() && System.nanoTime() - entry.expiresAt < 0;
+    }
+
+    private static class Entry<T> {
+        private final T value;
+        private final int playerCount;
+        private final long expiresAt;
+
+        private Entry(T value, int playerCount, long expiresAt) {
+            this.value = value;
+            this.playerCount = playerCount;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -37,24 +37,38 @@ public class StatusSessionHandler implements MinecraftSessionHandler {
             return;
         }
 
-        VelocityConfiguration configuration = VelocityServer.getServer().getConfiguration();
+        VelocityServer server = VelocityServer.getServer();
+        VelocityConfiguration configuration = server.getConfiguration();
 
         // Status request
         int shownVersion = ProtocolConstants.isSupported(connection.getProtocolVersion()) ? connection.getProtocolVersion() :
                 ProtocolConstants.MAXIMUM_GENERIC_VERSION;
+        ServerListPingCache cache = server.getServerListPingCache();
+        ByteBuf cached = cache.getStatusResponse(shownVersion);
+        if (cached != null) {
+            connection.write(cached);
+            return;
+        }
+
+        int playerCount = server.getPlayerCount();
         ServerPing initialPing = new ServerPing(
                 new ServerPing.Version(shownVersion, "Velocity " + ProtocolConstants.SUPPORTED_GENERIC_VERSION_STRING),
-                new ServerPing.Players(VelocityServer.getServer().getPlayerCount(), configuration.getShowMaxPlayers(), ImmutableList.of()),
+                new ServerPing.Players(playerCount, configuration.getShowMaxPlayers(), ImmutableList.of()),
                 configuration.getMotdComponent(),
                 configuration.getFavicon()
         );
 
         ProxyPingEvent event = new ProxyPingEvent(inboundWrapper, initialPing);
-        VelocityServer.getServer().getEventManager().fire(event)
+        server.getEventManager().fire(event)
                 .thenRunAsync(() -> {
-                    StatusResponse response = new StatusResponse();
-                    response.setStatus(VelocityServer.GSON.toJson(event.getPing()));
-                    connection.write(response);
+                    String status = VelocityServer.GSON.toJson(event.getPing());
+                    if (event.isCacheable()) {
+                        connection.write(cache.putStatusResponse(shownVersion, playerCount, status));
+                    } else {
+                        StatusResponse response = new StatusResponse();
+                        response.setStatus(status);
+                        connection.write(response);
+                    }
                 }, connection.getChannel().eventLoop());
     }
 
@@ -1,6 +1,6 @@
 package com.velocitypowered.proxy.connection.http;
 
-import com.velocitypowered.proxy.VelocityServer;
+import com.google.common.base.Preconditions;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
 import io.netty.channel.pool.*;
@@ -8,24 +8,64 @@ import io.netty.handler.codec.http.*;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.util.concurrent.ScheduledFuture;
 
-import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.net.URL;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * A small HTTP client for talking to Mojang's session servers. Host names are resolved asynchronously by the supplied
+ * resolver, connections to each host are pooled and kept alive between requests, and every request is bounded by a
+ * connect and a read timeout so a slow server can't hold up a login forever.
+ */
 public class NettyHttpClient {
     private final ChannelPoolMap<InetSocketAddress, SimpleChannelPool> poolMap;
+    private final SslContext sslContext;
+    private final int readTimeoutMillis;
 
-    public NettyHttpClient(VelocityServer server) {
-        Bootstrap bootstrap = server.initializeGenericBootstrap();
+    /**
+     * Creates a new HTTP client.
+     * @param bootstrap the bootstrap to create connections with, which must have a group and channel type set
+     * @param resolver the resolver to look up host names with
+     * @param maxConnections the maximum number of connections to keep to each host
+     * @param maxPendingRequests the maximum number of requests to each host that may wait for a free connection
+     * @param connectTimeoutMillis how long to wait for a connection to be established
+     * @param readTimeoutMillis how long to wait for a response, once the request has been sent
+     */
+    public NettyHttpClient(Bootstrap bootstrap, AddressResolverGroup<? extends SocketAddress> resolver, int maxConnections,
+                           int maxPendingRequests, int connectTimeoutMillis, int readTimeoutMillis) {
+        Preconditions.checkNotNull(bootstrap, "bootstrap");
+        Preconditions.checkNotNull(resolver, "resolver");
+        Preconditions.checkArgument(maxConnections > 0, "maxConnections");
+        Preconditions.checkArgument(maxPendingRequests > 0, "maxPendingRequests");
+        Preconditions.checkArgument(connectTimeoutMillis > 0, "connectTimeoutMillis");
+        Preconditions.checkArgument(readTimeoutMillis > 0, "readTimeoutMillis");
+        this.readTimeoutMillis = readTimeoutMillis;
+        try {
+            this.sslContext = SslContextBuilder.forClient().build();
+        } catch (SSLException e) {
+            throw new IllegalStateException("Unable to initialize TLS", e);
+        }
+
+        Bootstrap configured = bootstrap.clone()
+                .resolver(resolver)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis);
         this.poolMap = new AbstractChannelPoolMap<InetSocketAddress, SimpleChannelPool>() {
             @Override
             protected SimpleChannelPool newPool(InetSocketAddress key) {
-                return new FixedChannelPool(bootstrap.remoteAddress(key), new ChannelPoolHandler() {
+                // The key is unresolved, so the resolver looks the host up when each connection is made.
+                return new FixedChannelPool(configured.clone().remoteAddress(key), new ChannelPoolHandler() {
                     @Override
                     public void channelReleased(Channel channel) throws Exception {
-                        channel.pipeline().remove("collector");
+                        if (channel.pipeline().get("collector") != null) {
+                            channel.pipeline().remove("collector");
+                        }
                     }
 
                     @Override
@@ -35,13 +75,13 @@ public class NettyHttpClient {
                     @Override
                     public void channelCreated(Channel channel) throws Exception {
                         if (key.getPort() == 443) {
-                            SslContext context = SslContextBuilder.forClient().build();
-                            SSLEngine engine = context.newEngine(channel.alloc());
-                            channel.pipeline().addLast("ssl", new SslHandler(engine));
+                            channel.pipeline().addLast("ssl", new SslHandler(sslContext.newEngine(channel.alloc(),
+                                    key.getHostString(), key.getPort())));
                         }
                         channel.pipeline().addLast("http", new HttpClientCodec());
                     }
-                }, 8);
+                }, ChannelHealthChecker.ACTIVE, FixedChannelPool.AcquireTimeoutAction.FAIL,
+                        connectTimeoutMillis + readTimeoutMillis, maxConnections, maxPendingRequests);
             }
         };
     }
@@ -55,26 +95,49 @@ public class NettyHttpClient {
         }
 
         CompletableFuture<String> reply = new CompletableFuture<>();
-        InetSocketAddress address = new InetSocketAddress(host, port);
-        poolMap.get(address)
-                .acquire()
+        // Don't resolve the host here: this is usually called on an event loop, which must not block on DNS.
+        InetSocketAddress address = InetSocketAddress.createUnresolved(host, port);
+        SimpleChannelPool pool = poolMap.get(address);
+        pool.acquire()
                 .addListener(future -> {
-                    if (future.isSuccess()) {
-                        Channel channel = (Channel) future.getNow();
-                        channel.pipeline().addLast("collector", new SimpleHttpResponseCollector(reply));
+                    if (!future.isSuccess()) {
+                        reply.completeExceptionally(future.cause());
+                        return;
+                    }
 
-                        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, url.getPath() + "?" + url.getQuery());
-                        request.headers().add(HttpHeaderNames.HOST, url.getHost());
-                        request.headers().add(HttpHeaderNames.USER_AGENT, "Velocity");
-                        channel.writeAndFlush(request);
+                    Channel channel = (Channel) future.getNow();
+                    CompletableFuture<String> response = new CompletableFuture<>();
+                    channel.pipeline().addLast("collector", new SimpleHttpResponseCollector(response));
 
-                        reply.whenComplete((resp, err) -> {
-                            // Make sure to release this connection
-                            poolMap.get(address).release(channel, channel.voidPromise());
+                    DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, url.getFile());
+                    request.headers().add(HttpHeaderNames.HOST, url.getHost());
+                    request.headers().add(HttpHeaderNames.USER_AGENT, "Velocity");
+                    channel.writeAndFlush(request).addListener((ChannelFutureListener) writeFuture -> {
+                        if (!writeFuture.isSuccess()) {
+                            response.completeExceptionally(writeFuture.cause());
+                        }
+                    });
+
+                    ScheduledFuture<?> timeout = channel.eventLoop().schedule(() -> {
+                        response.completeExceptionally(new TimeoutException("No response from " + host + " within "
+                                + readTimeoutMillis + " ms"));
+                    }, readTimeoutMillis, TimeUnit.MILLISECONDS);
+
+                    response.whenComplete((body, err) -> {
+                        timeout.cancel(false);
+                        if (err != null) {
+                            // Whatever is left of the response would confuse the next request on this connection.
+                            channel.close();
+                        }
+                        // Only report the result once the connection is back in the pool, ready for the next request.
+                        pool.release(channel).addListener(released -> {
+                            if (err != null) {
+                                reply.completeExceptionally(err);
+                            } else {
+                                reply.complete(body);
+                            }
                         });
-                    } else {
-                        reply.completeExceptionally(future.cause());
-                    }
+                    });
                 });
         return reply;
     }
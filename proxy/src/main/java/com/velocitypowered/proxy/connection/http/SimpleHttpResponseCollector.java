@@ -5,6 +5,7 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.*;
 import io.netty.util.ReferenceCountUtil;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 
@@ -23,7 +24,9 @@ class SimpleHttpResponseCollector extends ChannelInboundHandlerAdapter {
             if (msg instanceof HttpResponse) {
                 HttpResponse response = (HttpResponse) msg;
                 HttpResponseStatus status = response.status();
-                if (status != HttpResponseStatus.OK) {
+                if (status.code() != HttpResponseStatus.OK.code()) {
+                    // The rest of the response is never read, so the connection can't be used again.
+                    ctx.close();
                     reply.completeExceptionally(new RuntimeException("Unexpected status code " + status.code()));
                     return;
                 }
@@ -46,6 +49,12 @@ class SimpleHttpResponseCollector extends ChannelInboundHandlerAdapter {
         }
     }
 
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        reply.completeExceptionally(new IOException("Connection closed before the response was received"));
+        super.channelInactive(ctx);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         ctx.close();
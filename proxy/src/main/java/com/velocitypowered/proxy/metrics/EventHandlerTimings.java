@@ -0,0 +1,91 @@
+package com.velocitypowered.proxy.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Times event handlers by plugin and event type. Only one in {@link #SAMPLE_INTERVAL} invocations is timed, which keeps
+ * the cost of profiling negligible for events fired on every packet.
+ */
+public final class EventHandlerTimings {
+    public static final int SAMPLE_INTERVAL = 16;
+
+    private final Map<String, Map<Class<?>, Histogram>> byPlugin = new ConcurrentHashMap<>();
+
+    EventHandlerTimings() {
+    }
+
+    /**
+     * Decides whether the next invocation of a handler should be timed.
+     * @return whether to time the invocation
+     */
+    public boolean shouldSample() {
+        return ThreadLocalRandom.current().nextInt(SAMPLE_INTERVAL) == 0;
+    }
+
+    /**
+     * Records a sampled invocation.
+     * @param pluginId the ID of the plugin that registered the handler
+     * @param eventType the type of event handled
+     * @param nanos how long the handler took, including any asynchronous work it waited on
+     */
+    public void record(String pluginId, Class<?> eventType, long nanos) {
+        Map<Class<?>, Histogram> byEvent = byPlugin.get(pluginId);
+        if (byEvent == null) {
+            byEvent = byPlugin.computeIfAbsent(pluginId, ignored -> new ConcurrentHashMap<>());
+        }
+        Histogram histogram = byEvent.get(eventType);
+        if (histogram == null) {
+            histogram = byEvent.computeIfAbsent(eventType, ignored -> Histogram.latency());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Returns the timings recorded so far.
+     * @return the timings, one entry per plugin and event type
+     */
+    public List<Entry> getEntries() {
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<String, Map<Class<?>, Histogram>> plugin : byPlugin.entrySet()) {
+            for (Map.Entry<Class<?>, Histogram> event : plugin.getValue().entrySet()) {
+                entries.add(new Entry(plugin.getKey(), event.getKey(), event.getValue()));
+            }
+        }
+        return entries;
+    }
+
+    void write(PrometheusWriter writer, String name) {
+        for (Entry entry : getEntries()) {
+            entry.histogram.write(writer, name, PrometheusWriter.label("plugin", entry.pluginId) + ","
+                    + PrometheusWriter.label("event", entry.eventType.getName()));
+        }
+    }
+
+    public static final class Entry {
+        private final String pluginId;
+        private final Class<?> eventType;
+        private final Histogram histogram;
+
+        private Entry(String pluginId, Class<?> eventType, Histogram histogram) {
+            this.pluginId = pluginId;
+            this.eventType = eventType;
+            this.histogram = histogram;
+        }
+
+        public String getPluginId() {
+            return pluginId;
+        }
+
+        public Class<?> getEventType() {
+            return eventType;
+        }
+
+        public Histogram getHistogram() {
+            return histogram;
+        }
+    }
+}
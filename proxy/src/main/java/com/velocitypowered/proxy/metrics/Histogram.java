@@ -0,0 +1,123 @@
+package com.velocitypowered.proxy.metrics;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram with fixed buckets. Every bucket is a {@link LongAdder}, so threads recording at the same time
+ * don't contend on a single memory location.
+ */
+public final class Histogram {
+    private final long[] boundsNanos;
+    private final LongAdder[] buckets;
+    private final LongAdder sumNanos = new LongAdder();
+
+    private Histogram(long[] boundsNanos) {
+        this.boundsNanos = boundsNanos;
+        // The extra bucket counts everything above the largest bound.
+        this.buckets = new LongAdder[boundsNanos.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Creates a histogram whose bucket bounds start at {@code firstBoundNanos} and grow by {@code factor} each time.
+     * @param firstBoundNanos the upper bound of the first bucket, in nanoseconds
+     * @param factor the factor between consecutive bounds
+     * @param count the number of bounded buckets
+     * @return the histogram
+     */
+    public static Histogram exponential(long firstBoundNanos, int factor, int count) {
+        Preconditions.checkArgument(firstBoundNanos > 0, "firstBoundNanos");
+        Preconditions.checkArgument(factor > 1, "factor");
+        Preconditions.checkArgument(count > 0, "count");
+        long[] bounds = new long[count];
+        long bound = firstBoundNanos;
+        for (int i = 0; i < count; i++) {
+            bounds[i] = bound;
+            bound *= factor;
+        }
+        return new Histogram(bounds);
+    }
+
+    /**
+     * Creates a histogram suitable for latencies between a microsecond and about a minute.
+     * @return the histogram
+     */
+    public static Histogram latency() {
+        return exponential(1_000, 4, 14);
+    }
+
+    public void record(long nanos) {
+        int i = 0;
+        while (i < boundsNanos.length && nanos > boundsNanos[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, a value previously obtained from {@link System#nanoTime()}.
+     * @param startNanos when the measured operation started
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * Estimates a quantile of the recorded values. The estimate is the upper bound of the bucket the quantile falls
+     * in, so it is never lower than the real value.
+     * @param quantile the quantile, between 0 and 1
+     * @return the estimate in nanoseconds, {@code 0} if nothing was recorded, or {@link Long#MAX_VALUE} if it is above
+     *         the largest bound
+     */
+    public long estimateQuantileNanos(double quantile) {
+        Preconditions.checkArgument(quantile >= 0 && quantile <= 1, "quantile");
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < boundsNanos.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return boundsNanos[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    void write(PrometheusWriter writer, String name, String labels) {
+        String prefix = labels.isEmpty() ? "le=\"" : labels + ",le=\"";
+        long cumulative = 0;
+        for (int i = 0; i < boundsNanos.length; i++) {
+            cumulative += buckets[i].sum();
+            writer.sample(name + "_bucket", prefix + PrometheusWriter.seconds(boundsNanos[i]) + "\"", cumulative);
+        }
+        cumulative += buckets[boundsNanos.length].sum();
+        writer.sample(name + "_bucket", prefix + "+Inf\"", cumulative);
+        writer.sample(name + "_sum", labels, PrometheusWriter.seconds(sumNanos.sum()));
+        writer.sample(name + "_count", labels, cumulative);
+    }
+}
@@ -0,0 +1,76 @@
+package com.velocitypowered.proxy.metrics;
+
+import com.google.common.base.Preconditions;
+import com.velocitypowered.proxy.connection.client.LoginAdmissionController;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Serves {@link ProxyMetrics} to Prometheus on {@code GET /metrics}. Expects {@link FullHttpRequest}s, so it must be
+ * placed after an {@link io.netty.handler.codec.http.HttpObjectAggregator}.
+ */
+@ChannelHandler.Sharable
+public class MetricsHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+    private static final Logger logger = LogManager.getLogger(MetricsHttpHandler.class);
+
+    private final LoginAdmissionController admission;
+
+    public MetricsHttpHandler(LoginAdmissionController admission) {
+        this.admission = Preconditions.checkNotNull(admission, "admission");
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+        FullHttpResponse response;
+        if (!request.decoderResult().isSuccess()) {
+            response = emptyResponse(HttpResponseStatus.BAD_REQUEST);
+        } else if (!new QueryStringDecoder(request.uri()).path().equals("/metrics")) {
+            response = emptyResponse(HttpResponseStatus.NOT_FOUND);
+        } else if (!request.method().equals(HttpMethod.GET) && !request.method().equals(HttpMethod.HEAD)) {
+            response = emptyResponse(HttpResponseStatus.METHOD_NOT_ALLOWED);
+        } else {
+            ByteBuf content = ByteBufUtil.writeUtf8(ctx.alloc(), ProxyMetrics.scrape(admission));
+            response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, content);
+            response.headers().set(HttpHeaderNames.CONTENT_TYPE, PrometheusWriter.CONTENT_TYPE);
+            HttpUtil.setContentLength(response, content.readableBytes());
+            if (request.method().equals(HttpMethod.HEAD)) {
+                content.clear();
+            }
+        }
+
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        HttpUtil.setKeepAlive(response, keepAlive);
+        if (keepAlive) {
+            ctx.writeAndFlush(response, ctx.voidPromise());
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private static FullHttpResponse emptyResponse(HttpResponseStatus status) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status);
+        HttpUtil.setContentLength(response, 0);
+        return response;
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        logger.error("Unable to serve metrics to {}", ctx.channel().remoteAddress(), cause);
+        ctx.close();
+    }
+}
@@ -0,0 +1,62 @@
+package com.velocitypowered.proxy.metrics;
+
+import com.velocitypowered.proxy.protocol.StateRegistry;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts packets and their sizes by protocol state and packet ID.
+ */
+public final class PacketMetrics {
+    // Packet IDs in the supported protocol versions stay well below this. Anything above shares the last slot.
+    private static final int MAX_TRACKED_ID = 0x7F;
+
+    private final LongAdder[][] counts;
+    private final LongAdder[][] bytes;
+
+    PacketMetrics() {
+        int states = StateRegistry.values().length;
+        this.counts = new LongAdder[states][MAX_TRACKED_ID + 1];
+        this.bytes = new LongAdder[states][MAX_TRACKED_ID + 1];
+        for (int state = 0; state < states; state++) {
+            for (int id = 0; id <= MAX_TRACKED_ID; id++) {
+                counts[state][id] = new LongAdder();
+                bytes[state][id] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * Records a packet.
+     * @param state the state of the connection the packet belongs to
+     * @param packetId the packet's ID
+     * @param size the size of the packet in bytes, including its ID but excluding any framing
+     */
+    public void record(StateRegistry state, int packetId, int size) {
+        int id = packetId < 0 || packetId > MAX_TRACKED_ID ? MAX_TRACKED_ID : packetId;
+        counts[state.ordinal()][id].increment();
+        bytes[state.ordinal()][id].add(size);
+    }
+
+    void writeCounts(PrometheusWriter writer, String name, String labels) {
+        write(writer, name, labels, counts);
+    }
+
+    void writeBytes(PrometheusWriter writer, String name, String labels) {
+        write(writer, name, labels, bytes);
+    }
+
+    private static void write(PrometheusWriter writer, String name, String labels, LongAdder[][] values) {
+        StateRegistry[] states = StateRegistry.values();
+        for (int state = 0; state < states.length; state++) {
+            String stateLabels = labels + "," + PrometheusWriter.label("state", states[state].name().toLowerCase(Locale.US));
+            for (int id = 0; id <= MAX_TRACKED_ID; id++) {
+                long value = values[state][id].sum();
+                if (value != 0) {
+                    writer.sample(name, stateLabels + "," + PrometheusWriter.label("id", "0x" + Integer.toHexString(id)), value);
+                }
+            }
+        }
+    }
+}
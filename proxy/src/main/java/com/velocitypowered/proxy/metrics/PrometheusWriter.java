@@ -0,0 +1,55 @@
+package com.velocitypowered.proxy.metrics;
+
+/**
+ * Writes samples in the Prometheus text exposition format (version 0.0.4).
+ */
+final class PrometheusWriter {
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder out = new StringBuilder(16384);
+
+    void header(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    void sample(String name, String labels, long value) {
+        appendName(name, labels).append(value).append('\n');
+    }
+
+    void sample(String name, String labels, double value) {
+        appendName(name, labels).append(value).append('\n');
+    }
+
+    private StringBuilder appendName(String name, String labels) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        return out.append(' ');
+    }
+
+    static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    static String label(String name, String value) {
+        StringBuilder builder = new StringBuilder(name.length() + value.length() + 3).append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                builder.append('\\').append(c);
+            } else if (c == '\n') {
+                builder.append("\\n");
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
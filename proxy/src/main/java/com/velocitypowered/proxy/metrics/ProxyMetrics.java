@@ -0,0 +1,209 @@
+package com.velocitypowered.proxy.metrics;
+
+import com.velocitypowered.proxy.connection.MinecraftConnection;
+import com.velocitypowered.proxy.connection.client.LoginAdmissionController;
+import com.velocitypowered.proxy.protocol.ProtocolConstants;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the proxy's internal metrics. The metrics are static so that pipeline handlers can record to them without
+ * reaching for the {@link com.velocitypowered.proxy.VelocityServer} singleton, and every counter is striped so that
+ * recording from many event loops at once doesn't turn into a point of contention.
+ */
+public final class ProxyMetrics {
+    private static final PacketMetrics DECODED_SERVERBOUND = new PacketMetrics();
+    private static final PacketMetrics DECODED_CLIENTBOUND = new PacketMetrics();
+    private static final PacketMetrics ENCODED_SERVERBOUND = new PacketMetrics();
+    private static final PacketMetrics ENCODED_CLIENTBOUND = new PacketMetrics();
+
+    public static final LongAdder COMPRESSION_BYTES_IN = new LongAdder();
+    public static final LongAdder COMPRESSION_BYTES_OUT = new LongAdder();
+    public static final Histogram COMPRESSION_TIME = Histogram.latency();
+
+    public static final LongAdder CIPHER_BYTES_ENCRYPTED = new LongAdder();
+    public static final LongAdder CIPHER_BYTES_DECRYPTED = new LongAdder();
+
+    public static final LongAdder LOGINS_REJECTED_BUSY = new LongAdder();
+    public static final LongAdder LOGINS_REJECTED_QUEUE_FULL = new LongAdder();
+
+    public static final Histogram EVENT_LOOP_DELAY = Histogram.latency();
+
+    public static final EventHandlerTimings EVENT_HANDLERS = new EventHandlerTimings();
+
+    private static final Map<Class<?>, Histogram> EVENT_DISPATCH = new ConcurrentHashMap<>();
+
+    private ProxyMetrics() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Returns the counters for packets decoded by the proxy, that is, packets it received.
+     * @param direction the direction the packets travel in
+     * @return the counters
+     */
+    public static PacketMetrics decoded(ProtocolConstants.Direction direction) {
+        return direction == ProtocolConstants.Direction.SERVERBOUND ? DECODED_SERVERBOUND : DECODED_CLIENTBOUND;
+    }
+
+    /**
+     * Returns the counters for packets encoded by the proxy. Packets relayed without being decoded aren't encoded
+     * again, so they only show up in {@link #decoded(ProtocolConstants.Direction)}.
+     * @param direction the direction the packets travel in
+     * @return the counters
+     */
+    public static PacketMetrics encoded(ProtocolConstants.Direction direction) {
+        return direction == ProtocolConstants.Direction.SERVERBOUND ? ENCODED_SERVERBOUND : ENCODED_CLIENTBOUND;
+    }
+
+    /**
+     * Returns the histogram of how long it takes to dispatch events of the given type to their listeners.
+     * @param eventType the type of event
+     * @return the histogram
+     */
+    public static Histogram eventDispatch(Class<?> eventType) {
+        Histogram histogram = EVENT_DISPATCH.get(eventType);
+        if (histogram == null) {
+            histogram = EVENT_DISPATCH.computeIfAbsent(eventType, ignored -> Histogram.latency());
+        }
+        return histogram;
+    }
+
+    /**
+     * Stages of the login process that are timed separately.
+     */
+    public enum LoginStage {
+        /** Waiting in the login queue, which is zero for players admitted straight away. */
+        QUEUE,
+        /** Firing the pre-login event. */
+        PRE_LOGIN,
+        /** Decrypting the client's encryption response, including time spent waiting for a crypto worker. */
+        DECRYPTION,
+        /** Asking Mojang's session server whether the player is authenticated. */
+        AUTHENTICATION,
+        /** Firing the game profile, permission setup and login events. */
+        EVENTS,
+        /** The whole login, from the client's login start packet until it is switched to the play state. */
+        TOTAL;
+
+        private final Histogram histogram = Histogram.latency();
+
+        public void recordSince(long startNanos) {
+            histogram.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Renders every metric in the Prometheus text format.
+     * @param admission the login admission controller to report the login queue of
+     * @return the rendered metrics
+     */
+    public static String scrape(LoginAdmissionController admission) {
+        PrometheusWriter writer = new PrometheusWriter();
+
+        writer.header("velocity_packets_total", "counter", "Packets decoded or encoded by the proxy.");
+        writePackets(writer, "velocity_packets_total", true);
+        writer.header("velocity_packet_bytes_total", "counter", "Size of packets decoded or encoded by the proxy.");
+        writePackets(writer, "velocity_packet_bytes_total", false);
+
+        writer.header("velocity_compression_input_bytes_total", "counter", "Bytes passed to the compressor.");
+        writer.sample("velocity_compression_input_bytes_total", "", COMPRESSION_BYTES_IN.sum());
+        writer.header("velocity_compression_output_bytes_total", "counter", "Bytes produced by the compressor.");
+        writer.sample("velocity_compression_output_bytes_total", "", COMPRESSION_BYTES_OUT.sum());
+        writer.header("velocity_compression_seconds", "histogram", "Time spent compressing a packet.");
+        COMPRESSION_TIME.write(writer, "velocity_compression_seconds", "");
+
+        writer.header("velocity_cipher_bytes_total", "counter", "Bytes encrypted or decrypted.");
+        writer.sample("velocity_cipher_bytes_total", "operation=\"encrypt\"", CIPHER_BYTES_ENCRYPTED.sum());
+        writer.sample("velocity_cipher_bytes_total", "operation=\"decrypt\"", CIPHER_BYTES_DECRYPTED.sum());
+
+        writer.header("velocity_logins_rejected_busy_total", "counter", "Logins refused because the crypto workers were saturated.");
+        writer.sample("velocity_logins_rejected_busy_total", "", LOGINS_REJECTED_BUSY.sum());
+        writer.header("velocity_logins_rejected_queue_full_total", "counter", "Logins refused because the login queue was full.");
+        writer.sample("velocity_logins_rejected_queue_full_total", "", LOGINS_REJECTED_QUEUE_FULL.sum());
+        writer.header("velocity_logins_in_progress", "gauge", "Logins admitted and not yet finished.");
+        writer.sample("velocity_logins_in_progress", "", admission.getInProgress());
+        writer.header("velocity_logins_queued", "gauge", "Logins waiting in the login queue.");
+        writer.sample("velocity_logins_queued", "", admission.getQueued());
+
+        writer.header("velocity_login_stage_seconds", "histogram", "Time spent in each stage of logging in.");
+        for (LoginStage stage : LoginStage.values()) {
+            stage.histogram.write(writer, "velocity_login_stage_seconds",
+                    PrometheusWriter.label("stage", stage.name().toLowerCase(Locale.US)));
+        }
+
+        writer.header("velocity_event_dispatch_seconds", "histogram", "Time taken to run the listeners of an event, including asynchronous work they wait on.");
+        for (Map.Entry<Class<?>, Histogram> entry : EVENT_DISPATCH.entrySet()) {
+            entry.getValue().write(writer, "velocity_event_dispatch_seconds",
+                    PrometheusWriter.label("event", entry.getKey().getName()));
+        }
+
+        writer.header("velocity_event_handler_seconds", "histogram", "Time taken by each plugin's listeners, sampled 1 in "
+                + EventHandlerTimings.SAMPLE_INTERVAL + " invocations.");
+        EVENT_HANDLERS.write(writer, "velocity_event_handler_seconds");
+
+        writer.header("velocity_event_loop_delay_seconds", "histogram", "Time between submitting a task to an event loop and it running.");
+        EVENT_LOOP_DELAY.write(writer, "velocity_event_loop_delay_seconds", "");
+
+        writer.header("velocity_delayed_writes_total", "counter", "Writes whose flush was deferred.");
+        writer.sample("velocity_delayed_writes_total", "", MinecraftConnection.getDelayedWrites());
+        writer.header("velocity_flushes_saved_total", "counter", "Flushes avoided by batching writes.");
+        writer.sample("velocity_flushes_saved_total", "", MinecraftConnection.getFlushesSaved());
+
+        writeAllocator(writer);
+        return writer.toString();
+    }
+
+    private static void writePackets(PrometheusWriter writer, String name, boolean counts) {
+        for (ProtocolConstants.Direction direction : ProtocolConstants.Direction.values()) {
+            String directionLabel = PrometheusWriter.label("direction", direction.name().toLowerCase(Locale.US));
+            writePackets(writer, name, counts, decoded(direction), directionLabel + ",operation=\"decode\"");
+            writePackets(writer, name, counts, encoded(direction), directionLabel + ",operation=\"encode\"");
+        }
+    }
+
+    private static void writePackets(PrometheusWriter writer, String name, boolean counts, PacketMetrics metrics,
+                                     String labels) {
+        if (counts) {
+            metrics.writeCounts(writer, name, labels);
+        } else {
+            metrics.writeBytes(writer, name, labels);
+        }
+    }
+
+    private static void writeAllocator(PrometheusWriter writer) {
+        PooledByteBufAllocatorMetric metric = PooledByteBufAllocator.DEFAULT.metric();
+        writer.header("velocity_allocator_used_bytes", "gauge", "Memory used by the pooled buffer allocator.");
+        writer.sample("velocity_allocator_used_bytes", "type=\"heap\"", metric.usedHeapMemory());
+        writer.sample("velocity_allocator_used_bytes", "type=\"direct\"", metric.usedDirectMemory());
+        writer.header("velocity_allocator_thread_local_caches", "gauge", "Thread local caches of the pooled buffer allocator.");
+        writer.sample("velocity_allocator_thread_local_caches", "", metric.numThreadLocalCaches());
+
+        writer.header("velocity_allocator_arena_active_allocations", "gauge", "Live allocations in each allocator arena.");
+        writeArenas(writer, "velocity_allocator_arena_active_allocations", metric, false);
+        writer.header("velocity_allocator_arena_active_bytes", "gauge", "Bytes of live allocations in each allocator arena.");
+        writeArenas(writer, "velocity_allocator_arena_active_bytes", metric, true);
+    }
+
+    private static void writeArenas(PrometheusWriter writer, String name, PooledByteBufAllocatorMetric metric,
+                                    boolean bytes) {
+        writeArenas(writer, name, "heap", metric.heapArenas(), bytes);
+        writeArenas(writer, name, "direct", metric.directArenas(), bytes);
+    }
+
+    private static void writeArenas(PrometheusWriter writer, String name, String type, List<PoolArenaMetric> arenas,
+                                    boolean bytes) {
+        for (int i = 0; i < arenas.size(); i++) {
+            PoolArenaMetric arena = arenas.get(i);
+            writer.sample(name, "type=\"" + type + "\",arena=\"" + i + "\"",
+                    bytes ? arena.numActiveBytes() : arena.numActiveAllocations());
+        }
+    }
+}
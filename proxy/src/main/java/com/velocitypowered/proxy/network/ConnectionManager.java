@@ -1,9 +1,14 @@
 package com.velocitypowered.proxy.network;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.velocitypowered.api.plugin.PluginManager;
 import com.velocitypowered.natives.util.Natives;
+import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.config.VelocityConfiguration;
 import com.velocitypowered.proxy.connection.MinecraftConnection;
 import com.velocitypowered.proxy.connection.client.HandshakeSessionHandler;
+import com.velocitypowered.proxy.connection.client.LoginAdmissionController;
+import com.velocitypowered.proxy.metrics.MetricsHttpHandler;
 import com.velocitypowered.proxy.protocol.ProtocolConstants;
 import com.velocitypowered.proxy.protocol.StateRegistry;
 import com.velocitypowered.proxy.protocol.netty.GS4QueryHandler;
@@ -16,9 +21,11 @@ import com.velocitypowered.proxy.protocol.netty.MinecraftVarintLengthEncoder;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFactory;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.Epoll;
 import io.netty.channel.epoll.EpollDatagramChannel;
@@ -33,10 +40,21 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioDatagramChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.NameResolver;
+import io.netty.resolver.dns.DefaultDnsCache;
+import io.netty.resolver.dns.DnsAddressResolverGroup;
+import io.netty.resolver.dns.DnsCache;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.DnsServerAddressStreamProvider;
+import io.netty.resolver.dns.DnsServerAddressStreamProviders;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.HashSet;
 import java.util.Locale;
@@ -48,16 +66,21 @@ import static com.velocitypowered.proxy.network.Connections.*;
 
 public final class ConnectionManager {
     private static final Logger logger = LogManager.getLogger(ConnectionManager.class);
+    private static final int MAX_DNS_CACHE_TTL_SECONDS = 300;
+    private static final int NEGATIVE_DNS_CACHE_TTL_SECONDS = 10;
 
     private final Set<Channel> endpoints = new HashSet<>();
     private final TransportType transportType;
     private final EventLoopGroup bossGroup;
     private final EventLoopGroup workerGroup;
+    private final DnsAddressResolverGroup resolverGroup;
+    private EventLoopWatchdog watchdog;
 
     public ConnectionManager() {
         this.transportType = TransportType.bestType();
         this.bossGroup = transportType.createEventLoopGroup(true);
         this.workerGroup = transportType.createEventLoopGroup(false);
+        this.resolverGroup = createResolverGroup(transportType.datagramChannelClass);
         this.logChannelInformation();
     }
 
@@ -72,10 +95,12 @@ public final class ConnectionManager {
                 .childHandler(new ChannelInitializer<Channel>() {
                     @Override
                     protected void initChannel(final Channel ch) {
+                        VelocityConfiguration configuration = VelocityServer.getServer().getConfiguration();
                         ch.pipeline()
                                 .addLast(READ_TIMEOUT, new ReadTimeoutHandler(CLIENT_READ_TIMEOUT_SECONDS, TimeUnit.SECONDS))
                                 .addLast(LEGACY_PING_DECODER, new LegacyPingDecoder())
-                                .addLast(FRAME_DECODER, new MinecraftVarintFrameDecoder())
+                                .addLast(FRAME_DECODER, new MinecraftVarintFrameDecoder(configuration.getMaxHandshakePacketSize(),
+                                        configuration.getMaxLoginPacketSize(), configuration.getMaxPlayPacketSize()))
                                 .addLast(LEGACY_PING_ENCODER, LegacyPingEncoder.INSTANCE)
                                 .addLast(FRAME_ENCODER, MinecraftVarintLengthEncoder.INSTANCE)
                                 .addLast(MINECRAFT_DECODER, new MinecraftDecoder(ProtocolConstants.Direction.SERVERBOUND))
@@ -103,10 +128,12 @@ public final class ConnectionManager {
     }
 
     public void queryBind(final String hostname, final int port) {
+        VelocityConfiguration configuration = VelocityServer.getServer().getConfiguration();
         Bootstrap bootstrap = new Bootstrap()
                 .channel(transportType.datagramChannelClass)
                 .group(this.workerGroup)
-                .handler(new GS4QueryHandler())
+                .handler(new GS4QueryHandler(configuration.getQueryResponseRefreshInterval(),
+                        configuration.getQueryRequestInterval()))
                 .localAddress(hostname, port);
         bootstrap.bind()
                 .addListener((ChannelFutureListener) future -> {
@@ -120,13 +147,93 @@ public final class ConnectionManager {
                 });
     }
 
+    public void metricsBind(final InetSocketAddress address, final LoginAdmissionController admission) {
+        final MetricsHttpHandler handler = new MetricsHttpHandler(admission);
+        final ServerBootstrap bootstrap = new ServerBootstrap()
+                .channel(this.transportType.serverSocketChannelClass)
+                .group(this.bossGroup, this.workerGroup)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(final Channel ch) {
+                        ch.pipeline()
+                                .addLast(READ_TIMEOUT, new ReadTimeoutHandler(CLIENT_READ_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                                .addLast(HTTP_CODEC, new HttpServerCodec())
+                                .addLast(HTTP_AGGREGATOR, new HttpObjectAggregator(8192))
+                                .addLast(HANDLER, handler);
+                    }
+                })
+                .localAddress(address);
+        bootstrap.bind()
+                .addListener((ChannelFutureListener) future -> {
+                    final Channel channel = future.channel();
+                    if (future.isSuccess()) {
+                        this.endpoints.add(channel);
+                        logger.info("Serving metrics on {}", channel.localAddress());
+                    } else {
+                        logger.error("Can't bind to {}", address, future.cause());
+                    }
+                });
+    }
+
+    /**
+     * Starts watching the worker event loops for stalls, which are reported once a loop fails to run a task for
+     * {@code thresholdMillis}.
+     * @param pluginManager the plugin manager, used to work out which plugin is blocking a loop
+     * @param thresholdMillis how long a loop may be unresponsive before it is reported
+     */
+    public void startWatchdog(PluginManager pluginManager, long thresholdMillis) {
+        this.watchdog = new EventLoopWatchdog(this.workerGroup, pluginManager, thresholdMillis);
+        this.watchdog.start();
+    }
+
     public Bootstrap createWorker() {
+        return createWorker(this.workerGroup);
+    }
+
+    /**
+     * Creates a bootstrap for outgoing connections that registers its channels with the specified group, which must
+     * be compatible with the transport this proxy uses. Passing a connection's own event loop ensures both ends of a
+     * relay are serviced by the same thread.
+     * @param group the group to register channels with
+     * @return the bootstrap
+     */
+    public Bootstrap createWorker(EventLoopGroup group) {
         return new Bootstrap()
                 .channel(this.transportType.socketChannelClass)
-                .group(this.workerGroup);
+                .group(group);
+    }
+
+    /**
+     * Returns a resolver that looks host names up without blocking the calling thread. Answers are cached for as long
+     * as their TTL allows, up to {@link #MAX_DNS_CACHE_TTL_SECONDS}, and failures for {@link #NEGATIVE_DNS_CACHE_TTL_SECONDS}.
+     * @return the resolver
+     */
+    public AddressResolverGroup<InetSocketAddress> getResolverGroup() {
+        return this.resolverGroup;
+    }
+
+    private static DnsAddressResolverGroup createResolverGroup(Class<? extends DatagramChannel> datagramChannelClass) {
+        // Each event loop gets its own resolver, but they all share one cache.
+        DnsCache cache = new DefaultDnsCache(0, MAX_DNS_CACHE_TTL_SECONDS, NEGATIVE_DNS_CACHE_TTL_SECONDS);
+        return new DnsAddressResolverGroup(datagramChannelClass, DnsServerAddressStreamProviders.platformDefault()) {
+            @Override
+            protected NameResolver<InetAddress> newNameResolver(EventLoop eventLoop,
+                                                                ChannelFactory<? extends DatagramChannel> channelFactory,
+                                                                DnsServerAddressStreamProvider nameServerProvider) {
+                return new DnsNameResolverBuilder(eventLoop)
+                        .channelFactory(channelFactory)
+                        .nameServerProvider(nameServerProvider)
+                        .resolveCache(cache)
+                        .build();
+            }
+        };
     }
 
     public void shutdown() {
+        if (this.watchdog != null) {
+            this.watchdog.shutdown();
+        }
+        this.resolverGroup.close();
         for (final Channel endpoint : this.endpoints) {
             try {
                 logger.info("Closing endpoint {}", endpoint.localAddress());
@@ -8,6 +8,8 @@ public interface Connections {
     String FRAME_DECODER = "frame-decoder";
     String FRAME_ENCODER = "frame-encoder";
     String HANDLER = "handler";
+    String HTTP_AGGREGATOR = "http-aggregator";
+    String HTTP_CODEC = "http-codec";
     String LEGACY_PING_DECODER = "legacy-ping-decoder";
     String LEGACY_PING_ENCODER = "legacy-ping-encoder";
     String MINECRAFT_DECODER = "minecraft-decoder";
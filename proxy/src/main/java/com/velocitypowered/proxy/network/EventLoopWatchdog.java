@@ -0,0 +1,159 @@
+package com.velocitypowered.proxy.network;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.velocitypowered.api.plugin.PluginContainer;
+import com.velocitypowered.api.plugin.PluginManager;
+import com.velocitypowered.proxy.metrics.ProxyMetrics;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects event loops that are blocked, usually by a plugin doing slow work on a Netty thread. Every loop is sent a
+ * heartbeat task at a fixed interval; the time it takes for a heartbeat to run is recorded, and when it takes longer
+ * than the stall threshold the loop thread's stack is logged together with the plugin that appears to be responsible.
+ */
+class EventLoopWatchdog {
+    private static final Logger logger = LogManager.getLogger(EventLoopWatchdog.class);
+    private static final long CHECK_INTERVAL_MILLIS = 50;
+
+    private final List<MonitoredLoop> loops = new ArrayList<>();
+    private final PluginManager pluginManager;
+    private final long thresholdNanos;
+    private final ScheduledExecutorService timer;
+
+    EventLoopWatchdog(EventLoopGroup group, PluginManager pluginManager, long thresholdMillis) {
+        Preconditions.checkArgument(thresholdMillis > 0, "thresholdMillis");
+        this.pluginManager = Preconditions.checkNotNull(pluginManager, "pluginManager");
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        for (EventExecutor loop : group) {
+            loops.add(new MonitoredLoop(loop));
+        }
+        this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("Velocity Event Loop Watchdog").setDaemon(true).build());
+    }
+
+    void start() {
+        timer.scheduleAtFixedRate(this::check, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        for (MonitoredLoop loop : loops) {
+            if (!loop.pending) {
+                loop.submit(now);
+            } else if (!loop.reported && now - loop.submittedNanos > thresholdNanos) {
+                loop.reported = true;
+                long stalledMillis = TimeUnit.NANOSECONDS.toMillis(now - loop.submittedNanos);
+                Thread thread = loop.thread;
+                if (thread == null) {
+                    // The loop has never run a heartbeat, so we don't know which thread it is yet.
+                    logger.warn("An event loop has not responded for {} ms", stalledMillis);
+                } else {
+                    StackTraceElement[] stack = thread.getStackTrace();
+                    reportStall(thread, stalledMillis, findPlugin(stack), stack);
+                }
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void reportStall(Thread thread, long stalledMillis, Optional<PluginContainer> plugin, StackTraceElement[] stack) {
+        StringBuilder trace = new StringBuilder();
+        for (StackTraceElement element : stack) {
+            trace.append("\n\tat ").append(element);
+        }
+        if (plugin.isPresent()) {
+            logger.warn("Event loop {} has not responded for {} ms, it appears to be blocked by plugin {}:{}",
+                    thread.getName(), stalledMillis, plugin.get().getDescription().getId(), trace);
+        } else {
+            logger.warn("Event loop {} has not responded for {} ms:{}", thread.getName(), stalledMillis, trace);
+        }
+    }
+
+    private Optional<PluginContainer> findPlugin(StackTraceElement[] stack) {
+        List<PluginContainer> plugins = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        for (PluginContainer plugin : pluginManager.getPlugins()) {
+            Optional<?> instance = plugin.getInstance();
+            if (!instance.isPresent()) {
+                continue;
+            }
+            String mainClass = instance.get().getClass().getName();
+            int lastDot = mainClass.lastIndexOf('.');
+            if (lastDot == -1) {
+                // A plugin in the default package can't be told apart from anything else.
+                continue;
+            }
+            plugins.add(plugin);
+            prefixes.add(mainClass.substring(0, lastDot + 1));
+        }
+
+        // The innermost frame belonging to a plugin is the most likely culprit. One plugin's package may be nested in
+        // another's, so the frame belongs to the plugin with the longest matching package.
+        for (StackTraceElement element : stack) {
+            PluginContainer owner = null;
+            int ownerPrefixLength = 0;
+            for (int i = 0; i < prefixes.size(); i++) {
+                String prefix = prefixes.get(i);
+                if (prefix.length() > ownerPrefixLength && element.getClassName().startsWith(prefix)) {
+                    owner = plugins.get(i);
+                    ownerPrefixLength = prefix.length();
+                }
+            }
+            if (owner != null) {
+                return Optional.of(owner);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static class MonitoredLoop implements Runnable {
+        private final EventExecutor loop;
+        private volatile Thread thread;
+        private volatile long submittedNanos;
+        private volatile boolean pending;
+        // Only touched by the watchdog thread.
+        private boolean reported;
+
+        private MonitoredLoop(EventExecutor loop) {
+            this.loop = loop;
+        }
+
+        private void submit(long now) {
+            submittedNanos = now;
+            pending = true;
+            reported = false;
+            try {
+                loop.execute(this);
+            } catch (RejectedExecutionException e) {
+                // The loop is shutting down.
+                pending = false;
+            }
+        }
+
+        @Override
+        public void run() {
+            if (thread == null) {
+                thread = Thread.currentThread();
+            }
+            ProxyMetrics.EVENT_LOOP_DELAY.recordSince(submittedNanos);
+            pending = false;
+        }
+    }
+}
@@ -1,39 +1,47 @@
 package com.velocitypowered.proxy.plugin;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Multimaps;
+import com.google.common.reflect.TypeToken;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.velocitypowered.api.event.EventHandler;
 import com.velocitypowered.api.event.EventManager;
 import com.velocitypowered.api.event.PostOrder;
 import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.plugin.PluginContainer;
+import com.velocitypowered.api.plugin.PluginDescription;
 import com.velocitypowered.api.plugin.PluginManager;
+import com.velocitypowered.proxy.metrics.ProxyMetrics;
 import com.velocitypowered.proxy.util.concurrency.RecordingThreadFactory;
-import net.kyori.event.EventSubscriber;
-import net.kyori.event.PostResult;
-import net.kyori.event.SimpleEventBus;
-import net.kyori.event.method.*;
+import net.kyori.event.method.EventExecutor;
 import net.kyori.event.method.asm.ASMEventExecutorFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.net.URL;
 import java.util.*;
 import java.util.concurrent.*;
 
 public class VelocityEventManager implements EventManager {
     private static final Logger logger = LogManager.getLogger(VelocityEventManager.class);
+    private static final HandlerRegistration[] NO_HANDLERS = new HandlerRegistration[0];
+    private static final ResolvedHandlers NOBODY_LISTENING = new ResolvedHandlers(NO_HANDLERS);
+    private static final Comparator<HandlerRegistration> DISPATCH_ORDER = Comparator
+            .comparing((HandlerRegistration registration) -> registration.order)
+            .thenComparingLong(registration -> registration.sequence);
 
-    private final ListMultimap<Object, Object> registeredListenersByPlugin = Multimaps
-            .synchronizedListMultimap(Multimaps.newListMultimap(new IdentityHashMap<>(), ArrayList::new));
-    private final ListMultimap<Object, EventHandler<?>> registeredHandlersByPlugin = Multimaps
-            .synchronizedListMultimap(Multimaps.newListMultimap(new IdentityHashMap<>(), ArrayList::new));
-    private final VelocityEventBus bus = new VelocityEventBus(
-            new ASMEventExecutorFactory<>(new PluginClassLoader(new URL[0])),
-            new VelocityMethodScanner());
+    private final EventExecutor.Factory<Object, Object> executorFactory =
+            new ASMEventExecutorFactory<>(new PluginClassLoader(new URL[0]));
+    private final Object lock = new Object();
+    // Guarded by lock.
+    private final List<HandlerRegistration> registrations = new ArrayList<>();
+    private long nextSequence;
+    // Handlers for an event type and all of its supertypes, in dispatch order. Cleared whenever registrations change.
+    private final Map<Class<?>, ResolvedHandlers> handlersByEventType = new ConcurrentHashMap<>();
     private final ExecutorService service;
     private final RecordingThreadFactory recordingThreadFactory;
     private final PluginManager pluginManager;
@@ -50,8 +58,15 @@ public class VelocityEventManager implements EventManager {
         Preconditions.checkNotNull(plugin, "plugin");
         Preconditions.checkNotNull(listener, "listener");
         Preconditions.checkArgument(pluginManager.fromInstance(plugin).isPresent(), "Specified plugin is not loaded");
-        registeredListenersByPlugin.put(plugin, listener);
-        bus.register(listener);
+
+        List<HandlerRegistration> found = new ArrayList<>();
+        for (Method method : listener.getClass().getDeclaredMethods()) {
+            Subscribe subscribe = method.getAnnotation(Subscribe.class);
+            if (subscribe != null) {
+                found.add(createRegistration(plugin, listener, method, subscribe));
+            }
+        }
+        addRegistrations(found);
     }
 
     @Override
@@ -60,50 +75,194 @@ public class VelocityEventManager implements EventManager {
         Preconditions.checkNotNull(eventClass, "eventClass");
         Preconditions.checkNotNull(postOrder, "postOrder");
         Preconditions.checkNotNull(handler, "listener");
-        bus.register(eventClass, new KyoriToVelocityHandler<>(handler, postOrder));
+        @SuppressWarnings("unchecked")
+        EventHandler<Object> untypedHandler = (EventHandler<Object>) handler;
+        addRegistrations(Collections.singletonList(new HandlerRegistration(plugin, getPluginId(plugin), handler,
+                eventClass, postOrder, true,
+                event -> {
+                    untypedHandler.execute(event);
+                    return null;
+                })));
+    }
+
+    private HandlerRegistration createRegistration(Object plugin, Object listener, Method method, Subscribe subscribe) {
+        Preconditions.checkArgument(method.getParameterCount() == 1, "Listener method %s must have exactly one parameter",
+                method);
+        Preconditions.checkArgument(Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers()),
+                "Listener method %s must be public and not static", method);
+        Class<?> eventType = method.getParameterTypes()[0];
+
+        Invoker invoker;
+        if (method.getReturnType() == void.class) {
+            EventExecutor<Object, Object> executor;
+            try {
+                executor = executorFactory.create(listener, method);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Unable to create an executor for " + method, e);
+            }
+            invoker = event -> {
+                executor.invoke(listener, event);
+                return null;
+            };
+        } else if (CompletionStage.class.isAssignableFrom(method.getReturnType())) {
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.publicLookup().unreflect(method).bindTo(listener);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Unable to access " + method, e);
+            }
+            invoker = event -> {
+                Object result = handle.invoke(event);
+                return (CompletionStage<?>) result;
+            };
+        } else {
+            throw new IllegalArgumentException("Listener method " + method + " must return void or a CompletionStage");
+        }
+        return new HandlerRegistration(plugin, getPluginId(plugin), listener, eventType, subscribe.order(),
+                subscribe.blocking(), invoker);
+    }
+
+    private String getPluginId(Object plugin) {
+        return pluginManager.fromInstance(plugin)
+                .map(PluginContainer::getDescription)
+                .map(PluginDescription::getId)
+                .orElse("unknown");
+    }
+
+    private void addRegistrations(List<HandlerRegistration> added) {
+        synchronized (lock) {
+            for (HandlerRegistration registration : added) {
+                registration.sequence = nextSequence++;
+                registrations.add(registration);
+            }
+            handlersByEventType.clear();
+        }
+    }
+
+    private void removeRegistrations(Object plugin, Object listener) {
+        synchronized (lock) {
+            registrations.removeIf(registration -> registration.plugin == plugin
+                    && (listener == null || registration.listener == listener));
+            handlersByEventType.clear();
+        }
+    }
+
+    private ResolvedHandlers getHandlers(Class<?> eventType) {
+        ResolvedHandlers handlers = handlersByEventType.get(eventType);
+        if (handlers != null) {
+            return handlers;
+        }
+
+        synchronized (lock) {
+            handlers = handlersByEventType.get(eventType);
+            if (handlers == null) {
+                Set<? extends Class<?>> types = TypeToken.of(eventType).getTypes().rawTypes();
+                List<HandlerRegistration> matching = new ArrayList<>();
+                for (HandlerRegistration registration : registrations) {
+                    if (types.contains(registration.eventType)) {
+                        matching.add(registration);
+                    }
+                }
+                matching.sort(DISPATCH_ORDER);
+                handlers = matching.isEmpty() ? NOBODY_LISTENING : new ResolvedHandlers(matching.toArray(NO_HANDLERS));
+                handlersByEventType.put(eventType, handlers);
+            }
+            return handlers;
+        }
     }
 
     @Override
     public <E> @NonNull CompletableFuture<E> fire(@NonNull E event) {
         Preconditions.checkNotNull(event, "event");
-        if (!bus.hasSubscribers(event.getClass())) {
+        ResolvedHandlers resolved = getHandlers(event.getClass());
+        HandlerRegistration[] handlers = resolved.handlers;
+        if (handlers.length == 0) {
             // Optimization: nobody's listening.
             return CompletableFuture.completedFuture(event);
         }
 
-        Runnable runEvent = () -> {
-            PostResult result = bus.post(event);
-            if (!result.exceptions().isEmpty()) {
-                logger.error("Some errors occurred whilst posting event {}.", event);
-                int i = 0;
-                for (Throwable exception : result.exceptions().values()) {
-                    logger.error("#{}: \n", i++, exception);
+        CompletableFuture<E> eventFuture = new CompletableFuture<>();
+        long start = System.nanoTime();
+        if (resolved.nonBlocking || recordingThreadFactory.currentlyInFactory()) {
+            // Optimization: fire the event immediately, either because none of the listeners will block or because
+            // we are on the event handling thread already. Unless a listener returns an incomplete stage, the event
+            // will have been handled by the time we return.
+            dispatch(event, handlers, 0, eventFuture, start);
+        } else {
+            service.execute(() -> dispatch(event, handlers, 0, eventFuture, start));
+        }
+        return eventFuture;
+    }
+
+    /**
+     * Runs the handlers for an event, starting from {@code index}. When a handler returns a {@link CompletionStage}
+     * that hasn't completed yet, dispatch is suspended without holding a thread and picks up with the next handler on
+     * the event executor once the stage completes.
+     */
+    private <E> void dispatch(E event, HandlerRegistration[] handlers, int index, CompletableFuture<E> eventFuture,
+                              long start) {
+        for (int i = index; i < handlers.length; i++) {
+            HandlerRegistration handler = handlers[i];
+            boolean sampled = ProxyMetrics.EVENT_HANDLERS.shouldSample();
+            long handlerStart = sampled ? System.nanoTime() : 0;
+            CompletionStage<?> stage;
+            try {
+                stage = handler.invoker.invoke(event);
+            } catch (Throwable throwable) {
+                logHandlerException(event, handler, throwable);
+                stage = null;
+            }
+
+            CompletableFuture<?> future = stage instanceof CompletableFuture ? (CompletableFuture<?>) stage : null;
+            if (stage == null || future != null && future.isDone()) {
+                if (sampled) {
+                    recordTiming(event, handler, handlerStart);
+                }
+                if (future != null && future.isCompletedExceptionally()) {
+                    future.exceptionally(throwable -> {
+                        logHandlerException(event, handler, throwable);
+                        return null;
+                    });
                 }
+                continue;
             }
-        };
 
-        if (recordingThreadFactory.currentlyInFactory()) {
-            // Optimization: fire the event immediately, we are on the event handling thread.
-            runEvent.run();
-            return CompletableFuture.completedFuture(event);
+            int next = i + 1;
+            stage.whenComplete((ignored, throwable) -> {
+                if (sampled) {
+                    recordTiming(event, handler, handlerStart);
+                }
+                if (throwable != null) {
+                    logHandlerException(event, handler, throwable);
+                }
+                try {
+                    service.execute(() -> dispatch(event, handlers, next, eventFuture, start));
+                } catch (RejectedExecutionException e) {
+                    // We're shutting down, so don't leave the caller waiting forever.
+                    eventFuture.complete(event);
+                }
+            });
+            return;
         }
 
-        CompletableFuture<E> eventFuture = new CompletableFuture<>();
-        service.execute(() -> {
-            runEvent.run();
-            eventFuture.complete(event);
-        });
-        return eventFuture;
+        ProxyMetrics.eventDispatch(event.getClass()).recordSince(start);
+        eventFuture.complete(event);
+    }
+
+    private static void recordTiming(Object event, HandlerRegistration handler, long start) {
+        ProxyMetrics.EVENT_HANDLERS.record(handler.pluginId, event.getClass(), System.nanoTime() - start);
+    }
+
+    private void logHandlerException(Object event, HandlerRegistration handler, Throwable throwable) {
+        logger.error("Couldn't pass {} to plugin {}", event.getClass().getSimpleName(), handler.pluginId,
+                throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
     }
 
     @Override
     public void unregisterListeners(@NonNull Object plugin) {
         Preconditions.checkNotNull(plugin, "plugin");
         Preconditions.checkArgument(pluginManager.fromInstance(plugin).isPresent(), "Specified plugin is not loaded");
-        Collection<Object> listeners = registeredListenersByPlugin.removeAll(plugin);
-        listeners.forEach(bus::unregister);
-        Collection<EventHandler<?>> handlers = registeredHandlersByPlugin.removeAll(plugin);
-        handlers.forEach(bus::unregister);
+        removeRegistrations(plugin, null);
     }
 
     @Override
@@ -111,16 +270,14 @@ public class VelocityEventManager implements EventManager {
         Preconditions.checkNotNull(plugin, "plugin");
         Preconditions.checkNotNull(listener, "listener");
         Preconditions.checkArgument(pluginManager.fromInstance(plugin).isPresent(), "Specified plugin is not loaded");
-        registeredListenersByPlugin.remove(plugin, listener);
-        bus.unregister(listener);
+        removeRegistrations(plugin, listener);
     }
 
     @Override
     public <E> void unregister(@NonNull Object plugin, @NonNull EventHandler<E> handler) {
         Preconditions.checkNotNull(plugin, "plugin");
         Preconditions.checkNotNull(handler, "listener");
-        registeredHandlersByPlugin.remove(plugin, handler);
-        bus.unregister(handler);
+        removeRegistrations(plugin, handler);
     }
 
     public boolean shutdown() throws InterruptedException {
@@ -128,65 +285,49 @@ public class VelocityEventManager implements EventManager {
         return service.awaitTermination(10, TimeUnit.SECONDS);
     }
 
-    private static class VelocityEventBus extends SimpleEventBus<Object> {
-        private final MethodSubscriptionAdapter<Object> methodAdapter;
-
-        VelocityEventBus(EventExecutor.@NonNull Factory<Object, Object> factory, @NonNull MethodScanner<Object> methodScanner) {
-            super(Object.class);
-            this.methodAdapter = new SimpleMethodSubscriptionAdapter<>(this, factory, methodScanner);
-        }
-
-        void register(Object listener) {
-            this.methodAdapter.register(listener);
-        }
-
-        void unregister(Object listener) {
-            this.methodAdapter.unregister(listener);
-        }
-
-        void unregister(EventHandler<?> handler) {
-            this.unregister(s -> s instanceof KyoriToVelocityHandler && ((KyoriToVelocityHandler<?>) s).getHandler().equals(handler));
-        }
+    @FunctionalInterface
+    private interface Invoker {
+        /**
+         * Passes the event to the handler.
+         * @return a stage that completes once the handler is done, or {@code null} if it has already finished
+         */
+        CompletionStage<?> invoke(Object event) throws Throwable;
     }
 
-    private static class VelocityMethodScanner implements MethodScanner<Object> {
-        @Override
-        public boolean shouldRegister(@NonNull Object listener, @NonNull Method method) {
-            return method.isAnnotationPresent(Subscribe.class);
-        }
-
-        @Override
-        public int postOrder(@NonNull Object listener, @NonNull Method method) {
-            return method.getAnnotation(Subscribe.class).order().ordinal();
-        }
+    private static class HandlerRegistration {
+        private final Object plugin;
+        private final String pluginId;
+        private final Object listener;
+        private final Class<?> eventType;
+        private final PostOrder order;
+        private final boolean blocking;
+        private final Invoker invoker;
+        private long sequence;
 
-        @Override
-        public boolean consumeCancelledEvents(@NonNull Object listener, @NonNull Method method) {
-            return true;
+        private HandlerRegistration(Object plugin, String pluginId, Object listener, Class<?> eventType,
+                                    PostOrder order, boolean blocking, Invoker invoker) {
+            this.plugin = plugin;
+            this.pluginId = pluginId;
+            this.listener = listener;
+            this.eventType = eventType;
+            this.order = order;
+            this.blocking = blocking;
+            this.invoker = invoker;
         }
     }
 
-    private static class KyoriToVelocityHandler<E> implements EventSubscriber<E> {
-        private final EventHandler<E> handler;
-        private final int postOrder;
+    private static class ResolvedHandlers {
+        private final HandlerRegistration[] handlers;
+        // Whether every handler has promised not to block, so the event can be dispatched on the firing thread.
+        private final boolean nonBlocking;
 
-        private KyoriToVelocityHandler(EventHandler<E> handler, PostOrder postOrder) {
-            this.handler = handler;
-            this.postOrder = postOrder.ordinal();
-        }
-
-        @Override
-        public void invoke(@NonNull E event) {
-            handler.execute(event);
-        }
-
-        @Override
-        public int postOrder() {
-            return postOrder;
-        }
-
-        public EventHandler<E> getHandler() {
-            return handler;
+        private ResolvedHandlers(HandlerRegistration[] handlers) {
+            this.handlers = handlers;
+            boolean nonBlocking = true;
+            for (HandlerRegistration handler : handlers) {
+                nonBlocking &= !handler.blocking;
+            }
+            this.nonBlocking = nonBlocking;
         }
     }
 }
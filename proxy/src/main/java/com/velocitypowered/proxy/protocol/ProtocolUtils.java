@@ -12,6 +12,7 @@ import java.util.UUID;
 
 public enum ProtocolUtils { ;
     private static final int DEFAULT_MAX_STRING_SIZE = 65536; // 64KiB
+    public static final int MAXIMUM_VARINT_SIZE = 5;
 
     public static int readVarInt(ByteBuf buf) {
         int i = 0;
@@ -37,6 +38,19 @@ public enum ProtocolUtils { ;
         }
     }
 
+    public static int varIntBytes(int value) {
+        if ((value & 0xFFFFFF80) == 0) {
+            return 1;
+        } else if ((value & 0xFFFFC000) == 0) {
+            return 2;
+        } else if ((value & 0xFFE00000) == 0) {
+            return 3;
+        } else if ((value & 0xF0000000) == 0) {
+            return 4;
+        }
+        return 5;
+    }
+
     public static String readString(ByteBuf buf) {
         return readString(buf, DEFAULT_MAX_STRING_SIZE);
     }
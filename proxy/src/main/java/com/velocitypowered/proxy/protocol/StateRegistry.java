@@ -246,6 +246,10 @@ public enum StateRegistry {
                 return supplier.get();
             }
 
+            public boolean isDecodable(final int id) {
+                return this.packetIdToSupplier.containsKey(id);
+            }
+
             public int getPacketId(final MinecraftPacket packet) {
                 final int id = this.packetClassToId.getInt(packet.getClass());
                 if (id == Integer.MIN_VALUE) {
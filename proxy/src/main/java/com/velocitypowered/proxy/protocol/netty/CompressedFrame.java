@@ -0,0 +1,53 @@
+package com.velocitypowered.proxy.protocol.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+
+/**
+ * A frame from a compressed connection, kept exactly as it was received: the uncompressed length followed by the
+ * (possibly compressed) packet. It can be written as-is to any connection using the same compression threshold.
+ */
+public class CompressedFrame extends DefaultByteBufHolder {
+    public CompressedFrame(ByteBuf data) {
+        super(data);
+    }
+
+    @Override
+    public CompressedFrame replace(ByteBuf content) {
+        return new CompressedFrame(content);
+    }
+
+    @Override
+    public CompressedFrame duplicate() {
+        return (CompressedFrame) super.duplicate();
+    }
+
+    @Override
+    public CompressedFrame retainedDuplicate() {
+        return (CompressedFrame) super.retainedDuplicate();
+    }
+
+    @Override
+    public CompressedFrame retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public CompressedFrame retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public CompressedFrame touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public CompressedFrame touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+}
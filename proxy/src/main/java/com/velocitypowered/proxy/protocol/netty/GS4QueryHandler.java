@@ -1,12 +1,18 @@
 package com.velocitypowered.proxy.protocol.netty;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.config.VelocityConfiguration;
 import com.velocitypowered.proxy.protocol.ProtocolConstants;
+import com.velocitypowered.proxy.util.Ratelimiter;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.socket.DatagramPacket;
@@ -15,11 +21,15 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 
 public class GS4QueryHandler extends SimpleChannelInboundHandler<DatagramPacket> {
     private static final Logger logger = LogManager.getLogger(GS4QueryHandler.class);
@@ -42,9 +52,39 @@ public class GS4QueryHandler extends SimpleChannelInboundHandler<DatagramPacket>
             "hostip"
     );
 
-    private final static Cache<InetAddress, Integer> sessions = CacheBuilder.newBuilder()
-            .expireAfterWrite(30, TimeUnit.SECONDS)
-            .build();
+    /**
+     * How long challenge tokens stay valid for. Tokens are accepted for up to twice this long.
+     */
+    private static final long CHALLENGE_TOKEN_PERIOD_MILLIS = 30_000;
+
+    private final LongSupplier clock;
+    private final long responseRefreshNanos;
+    // Challenge tokens are derived from the sender's address and the current period using a random key, so we don't
+    // have to store anything for each address that performs a handshake.
+    private final HashFunction challengeTokenHash = Hashing.sipHash24(ThreadLocalRandom.current().nextLong(),
+            ThreadLocalRandom.current().nextLong());
+    // Each address may request a challenge token, and request stats, once per request interval.
+    private final Ratelimiter handshakeLimiter;
+    private final Ratelimiter statLimiter;
+
+    // The query channel is bound to a single event loop, so these don't need to be thread-safe.
+    private byte[] basicResponse;
+    private byte[] fullResponse;
+    private long responsesBuiltAt;
+
+    public GS4QueryHandler(long responseRefreshMillis, long requestIntervalMillis) {
+        this(System::currentTimeMillis, responseRefreshMillis, requestIntervalMillis);
+    }
+
+    @VisibleForTesting
+    GS4QueryHandler(LongSupplier clock, long responseRefreshMillis, long requestIntervalMillis) {
+        Preconditions.checkArgument(responseRefreshMillis >= 0, "responseRefreshMillis");
+        Preconditions.checkArgument(requestIntervalMillis >= 0, "requestIntervalMillis");
+        this.clock = clock;
+        this.responseRefreshNanos = TimeUnit.MILLISECONDS.toNanos(responseRefreshMillis);
+        this.handshakeLimiter = new Ratelimiter(requestIntervalMillis);
+        this.statLimiter = new Ratelimiter(requestIntervalMillis);
+    }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) throws Exception {
@@ -67,22 +107,30 @@ public class GS4QueryHandler extends SimpleChannelInboundHandler<DatagramPacket>
 
             switch (type) {
                 case QUERY_TYPE_HANDSHAKE: {
-                    // Generate new challenge token and put it into the sessions cache
-                    int challengeToken = ThreadLocalRandom.current().nextInt();
-                    sessions.put(senderAddress, challengeToken);
+                    if (!handshakeLimiter.attempt(senderAddress)) {
+                        // Silently drop floods, responding would only amplify them.
+                        responsePacket.release();
+                        return;
+                    }
 
                     // Respond with challenge token
                     queryResponse.writeByte(QUERY_TYPE_HANDSHAKE);
                     queryResponse.writeInt(sessionId);
-                    writeString(queryResponse, Integer.toString(challengeToken));
+                    writeString(queryResponse, Integer.toString(challengeToken(senderAddress, currentPeriod())));
                     break;
                 }
 
                 case QUERY_TYPE_STAT: {
-                    // Check if query was done with session previously generated using a handshake packet
+                    if (!statLimiter.attempt(senderAddress)) {
+                        responsePacket.release();
+                        return;
+                    }
+
+                    // Check if query was done with a challenge token previously generated using a handshake packet
                     int challengeToken = queryMessage.readInt();
-                    Integer session = sessions.getIfPresent(senderAddress);
-                    if (session == null || session != challengeToken) {
+                    long period = currentPeriod();
+                    if (challengeToken != challengeToken(senderAddress, period) &&
+                            challengeToken != challengeToken(senderAddress, period - 1)) {
                         throw new IllegalStateException("Invalid challenge token");
                     }
 
@@ -91,30 +139,13 @@ public class GS4QueryHandler extends SimpleChannelInboundHandler<DatagramPacket>
                         throw new IllegalStateException("Invalid query packet");
                     }
 
-                    // Packet header
+                    // Packet header, followed by the shared response body
+                    refreshResponses();
+                    byte[] body = queryMessage.readableBytes() == 0 ? basicResponse : fullResponse;
+                    queryResponse.ensureWritable(5 + body.length);
                     queryResponse.writeByte(QUERY_TYPE_STAT);
                     queryResponse.writeInt(sessionId);
-
-                    // Fetch information
-                    VelocityServer server = VelocityServer.getServer();
-                    Collection<Player> players = server.getAllPlayers();
-
-                    // Start writing the response
-                    ResponseWriter responseWriter = new ResponseWriter(queryResponse, queryMessage.readableBytes() == 0);
-                    responseWriter.write("hostname", ComponentSerializers.PLAIN.serialize(server.getConfiguration().getMotdComponent()));
-                    responseWriter.write("gametype", "SMP");
-
-                    responseWriter.write("game_id", "MINECRAFT");
-                    responseWriter.write("version", ProtocolConstants.SUPPORTED_GENERIC_VERSION_STRING);
-                    responseWriter.write("plugins", "");
-
-                    responseWriter.write("map", "Velocity");
-                    responseWriter.write("numplayers", players.size());
-                    responseWriter.write("maxplayers", server.getConfiguration().getShowMaxPlayers());
-                    responseWriter.write("hostport", server.getConfiguration().getBind().getPort());
-                    responseWriter.write("hostip", server.getConfiguration().getBind().getHostString());
-
-                    responseWriter.writePlayers(players);
+                    queryResponse.writeBytes(body);
                     break;
                 }
 
@@ -131,6 +162,65 @@ public class GS4QueryHandler extends SimpleChannelInboundHandler<DatagramPacket>
         }
     }
 
+    private long currentPeriod() {
+        return clock.getAsLong() / CHALLENGE_TOKEN_PERIOD_MILLIS;
+    }
+
+    private int challengeToken(InetAddress address, long period) {
+        return challengeTokenHash.newHasher()
+                .putBytes(address.getAddress())
+                .putLong(period)
+                .hash()
+                .asInt();
+    }
+
+    private void refreshResponses() {
+        long now = System.nanoTime();
+        if (basicResponse != null && now - responsesBuiltAt < responseRefreshNanos) {
+            return;
+        }
+
+        buildResponses();
+        responsesBuiltAt = now;
+    }
+
+    @VisibleForTesting
+    void buildResponses() {
+        VelocityServer server = VelocityServer.getServer();
+        VelocityConfiguration configuration = server.getConfiguration();
+        List<String> players = server.getAllPlayers().stream()
+                .map(Player::getUsername)
+                .collect(Collectors.toList());
+        buildResponses(ComponentSerializers.PLAIN.serialize(configuration.getMotdComponent()),
+                configuration.getShowMaxPlayers(), configuration.getBind(), players);
+    }
+
+    void buildResponses(String hostname, int maxPlayers, InetSocketAddress bind, Collection<String> players) {
+        basicResponse = buildResponse(hostname, maxPlayers, bind, players, true);
+        fullResponse = buildResponse(hostname, maxPlayers, bind, players, false);
+    }
+
+    private static byte[] buildResponse(String hostname, int maxPlayers, InetSocketAddress bind,
+                                        Collection<String> players, boolean isBasic) {
+        ByteBuf buf = Unpooled.buffer();
+        ResponseWriter responseWriter = new ResponseWriter(buf, isBasic);
+        responseWriter.write("hostname", hostname);
+        responseWriter.write("gametype", "SMP");
+
+        responseWriter.write("game_id", "MINECRAFT");
+        responseWriter.write("version", ProtocolConstants.SUPPORTED_GENERIC_VERSION_STRING);
+        responseWriter.write("plugins", "");
+
+        responseWriter.write("map", "Velocity");
+        responseWriter.write("numplayers", players.size());
+        responseWriter.write("maxplayers", maxPlayers);
+        responseWriter.write("hostport", bind.getPort());
+        responseWriter.write("hostip", bind.getHostString());
+
+        responseWriter.writePlayers(players);
+        return ByteBufUtil.getBytes(buf);
+    }
+
     private static void writeString(ByteBuf buf, String string) {
         buf.writeCharSequence(string, StandardCharsets.ISO_8859_1);
         buf.writeByte(0x00);
@@ -174,7 +264,7 @@ public class GS4QueryHandler extends SimpleChannelInboundHandler<DatagramPacket>
 
         // Ends packet k/v body writing and writes stat player list to
         // the packet if this writer is initialized for full stat response
-        void writePlayers(Collection<Player> players) {
+        void writePlayers(Collection<String> players) {
             if (isBasic) {
                 return;
             }
@@ -183,7 +273,7 @@ public class GS4QueryHandler extends SimpleChannelInboundHandler<DatagramPacket>
             buf.writeByte(0x00);
 
             buf.writeBytes(QUERY_RESPONSE_FULL_PADDING2);
-            players.forEach(player -> writeString(buf, player.getUsername()));
+            players.forEach(player -> writeString(buf, player));
             buf.writeByte(0x00);
         }
     }
@@ -0,0 +1,53 @@
+package com.velocitypowered.proxy.protocol.netty;
+
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+
+/**
+ * Helpers for buffers that keep free space in front of their readable bytes, so that the uncompressed size and frame
+ * length headers can be written in place instead of into separate buffers.
+ */
+enum HeaderSpace { ;
+    /**
+     * Enough space for both the uncompressed size and the frame length.
+     */
+    static final int RESERVED = ProtocolUtils.MAXIMUM_VARINT_SIZE * 2;
+
+    static ByteBuf reserve(ByteBuf buf) {
+        buf.writerIndex(RESERVED);
+        buf.readerIndex(RESERVED);
+        return buf;
+    }
+
+    /**
+     * Determines whether the specified number of bytes can be written in front of the buffer's readable bytes. This
+     * requires that we are the only owner of the buffer's memory, so buffers that are shared, derived from another
+     * buffer or made of several components never qualify.
+     * @param buf the buffer to check
+     * @param bytes the number of bytes to prepend
+     * @return whether or not the bytes can be written in place
+     */
+    static boolean canPrepend(ByteBuf buf, int bytes) {
+        return buf.readerIndex() >= bytes && isExclusive(buf);
+    }
+
+    /**
+     * Determines whether we are the only owner of the buffer's memory, and can therefore modify it in place.
+     * @param buf the buffer to check
+     * @return whether or not the buffer may be modified in place
+     */
+    static boolean isExclusive(ByteBuf buf) {
+        return buf.refCnt() == 1 && buf.unwrap() == null && !buf.isReadOnly() && !(buf instanceof CompositeByteBuf);
+    }
+
+    static void prependVarInt(ByteBuf buf, int value) {
+        int index = buf.readerIndex() - ProtocolUtils.varIntBytes(value);
+        buf.readerIndex(index);
+        while ((value & 0xFFFFFF80) != 0) {
+            buf.setByte(index++, value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buf.setByte(index, value);
+    }
+}
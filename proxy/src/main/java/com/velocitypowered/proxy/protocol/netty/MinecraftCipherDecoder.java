@@ -2,13 +2,14 @@ package com.velocitypowered.proxy.protocol.netty;
 
 import com.google.common.base.Preconditions;
 import com.velocitypowered.natives.encryption.VelocityCipher;
+import com.velocitypowered.proxy.metrics.ProxyMetrics;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.MessageToMessageDecoder;
 
 import java.util.List;
 
-public class MinecraftCipherDecoder extends ByteToMessageDecoder {
+public class MinecraftCipherDecoder extends MessageToMessageDecoder<ByteBuf> {
     private final VelocityCipher cipher;
 
     public MinecraftCipherDecoder(VelocityCipher cipher) {
@@ -17,6 +18,14 @@ public class MinecraftCipherDecoder extends ByteToMessageDecoder {
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        ProxyMetrics.CIPHER_BYTES_DECRYPTED.add(in.readableBytes());
+        if (HeaderSpace.isExclusive(in)) {
+            // Buffers fresh off the socket are ours alone, and CFB8 output is exactly as long as its input.
+            cipher.process(in);
+            out.add(in.retain());
+            return;
+        }
+
         ByteBuf decrypted = ctx.alloc().buffer(in.readableBytes());
         try {
             cipher.process(in, decrypted);
@@ -28,7 +37,7 @@ public class MinecraftCipherDecoder extends ByteToMessageDecoder {
     }
 
     @Override
-    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
         cipher.dispose();
     }
 }
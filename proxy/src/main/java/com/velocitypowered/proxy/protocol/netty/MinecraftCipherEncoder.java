@@ -2,11 +2,14 @@ package com.velocitypowered.proxy.protocol.netty;
 
 import com.google.common.base.Preconditions;
 import com.velocitypowered.natives.encryption.VelocityCipher;
+import com.velocitypowered.proxy.metrics.ProxyMetrics;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
 
-public class MinecraftCipherEncoder extends MessageToByteEncoder<ByteBuf> {
+import java.util.List;
+
+public class MinecraftCipherEncoder extends MessageToMessageEncoder<ByteBuf> {
     private final VelocityCipher cipher;
 
     public MinecraftCipherEncoder(VelocityCipher cipher) {
@@ -14,13 +17,24 @@ public class MinecraftCipherEncoder extends MessageToByteEncoder<ByteBuf> {
     }
 
     @Override
-    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) throws Exception {
-        cipher.process(msg, out);
-    }
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        ProxyMetrics.CIPHER_BYTES_ENCRYPTED.add(msg.readableBytes());
+        if (HeaderSpace.isExclusive(msg)) {
+            // Nobody else can see this buffer, so encrypting it in place is safe.
+            cipher.process(msg);
+            out.add(msg.retain());
+            return;
+        }
 
-    @Override
-    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) throws Exception {
-        return ctx.alloc().directBuffer(msg.readableBytes());
+        // The buffer may be shared (for instance a packet being relayed or broadcast), so leave it as it is.
+        ByteBuf encrypted = ctx.alloc().directBuffer(msg.readableBytes());
+        try {
+            cipher.process(msg, encrypted);
+            out.add(encrypted);
+        } catch (Exception e) {
+            encrypted.release();
+            throw e;
+        }
     }
 
     @Override
@@ -3,6 +3,7 @@ package com.velocitypowered.proxy.protocol.netty;
 import com.google.common.base.Preconditions;
 import com.velocitypowered.proxy.protocol.ProtocolUtils;
 import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.proxy.protocol.StateRegistry;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
@@ -14,6 +15,7 @@ public class MinecraftCompressDecoder extends MessageToMessageDecoder<ByteBuf> {
 
     private final int threshold;
     private final VelocityCompressor compressor;
+    private MinecraftDecoder passthroughDecoder;
 
     public MinecraftCompressDecoder(int threshold, VelocityCompressor compressor) {
         this.threshold = threshold;
@@ -22,10 +24,15 @@ public class MinecraftCompressDecoder extends MessageToMessageDecoder<ByteBuf> {
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        int frameStart = msg.readerIndex();
         int uncompressedSize = ProtocolUtils.readVarInt(msg);
         if (uncompressedSize == 0) {
-            // Strip the now-useless uncompressed size, this message is already uncompressed.
-            out.add(msg.retainedSlice());
+            if (shouldPassthrough(msg)) {
+                out.add(new CompressedFrame(msg.retainedSlice(frameStart, msg.writerIndex() - frameStart)));
+            } else {
+                // Strip the now-useless uncompressed size, this message is already uncompressed.
+                out.add(msg.retainedSlice());
+            }
             msg.skipBytes(msg.readableBytes());
             return;
         }
@@ -36,12 +43,39 @@ public class MinecraftCompressDecoder extends MessageToMessageDecoder<ByteBuf> {
         try {
             compressor.inflate(msg, uncompressed);
             Preconditions.checkState(uncompressedSize == uncompressed.readableBytes(), "Mismatched compression sizes");
-            out.add(uncompressed);
         } catch (Exception e) {
             // If something went wrong, rethrow the exception, but ensure we free our temporary buffer first.
             uncompressed.release();
             throw e;
         }
+
+        if (shouldPassthrough(uncompressed)) {
+            // We only needed to look at the packet ID. Relay the frame as it was compressed.
+            uncompressed.release();
+            out.add(new CompressedFrame(msg.retainedSlice(frameStart, msg.writerIndex() - frameStart)));
+        } else {
+            out.add(uncompressed);
+        }
+    }
+
+    private boolean shouldPassthrough(ByteBuf packet) {
+        if (passthroughDecoder == null || passthroughDecoder.getState() != StateRegistry.PLAY || !packet.isReadable()) {
+            return false;
+        }
+
+        int readerIndex = packet.readerIndex();
+        int packetId = ProtocolUtils.readVarInt(packet);
+        packet.readerIndex(readerIndex);
+        return !passthroughDecoder.getProtocolVersion().isDecodable(packetId);
+    }
+
+    /**
+     * Emits packets the specified decoder would not decode as {@link CompressedFrame}s instead of inflating them.
+     * This is only useful if the frames will be relayed to a connection with the same compression threshold.
+     * @param decoder the decoder for this connection
+     */
+    public void enablePassthrough(MinecraftDecoder decoder) {
+        this.passthroughDecoder = Preconditions.checkNotNull(decoder, "decoder");
     }
 
     @Override
@@ -1,12 +1,16 @@
 package com.velocitypowered.proxy.protocol.netty;
 
+import com.velocitypowered.proxy.metrics.ProxyMetrics;
 import com.velocitypowered.proxy.protocol.ProtocolUtils;
 import com.velocitypowered.natives.compression.VelocityCompressor;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.MessageToMessageEncoder;
 
-public class MinecraftCompressEncoder extends MessageToByteEncoder<ByteBuf> {
+import java.util.List;
+
+public class MinecraftCompressEncoder extends MessageToMessageEncoder<ByteBuf> {
     private final int threshold;
     private final VelocityCompressor compressor;
 
@@ -16,25 +20,47 @@ public class MinecraftCompressEncoder extends MessageToByteEncoder<ByteBuf> {
     }
 
     @Override
-    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) throws Exception {
-        int uncompressed = msg.readableBytes();
-        if (uncompressed <= threshold) {
-            // Under the threshold, there is nothing to do.
-            ProtocolUtils.writeVarInt(out, 0);
-            out.writeBytes(msg);
-        } else {
-            ProtocolUtils.writeVarInt(out, uncompressed);
-            compressor.deflate(msg, out);
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof CompressedFrame) {
+            // This frame was compressed by another connection using our threshold, so it's already in the right format.
+            ctx.write(((CompressedFrame) msg).content(), promise);
+            return;
         }
+        super.write(ctx, msg, promise);
     }
 
     @Override
-    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) throws Exception {
-        if (msg.readableBytes() <= threshold) {
-            return ctx.alloc().directBuffer(msg.readableBytes() + 1);
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        int uncompressed = msg.readableBytes();
+        if (uncompressed <= threshold) {
+            // Under the threshold, there is nothing to do but to mark the packet as uncompressed.
+            if (HeaderSpace.canPrepend(msg, 1)) {
+                HeaderSpace.prependVarInt(msg, 0);
+                out.add(msg.retain());
+            } else {
+                ByteBuf buf = HeaderSpace.reserve(ctx.alloc().directBuffer(HeaderSpace.RESERVED + uncompressed + 1));
+                ProtocolUtils.writeVarInt(buf, 0);
+                buf.writeBytes(msg);
+                out.add(buf);
+            }
+            return;
         }
+
         // A reasonable assumption about compression savings
-        return ctx.alloc().directBuffer(msg.readableBytes() / 3);
+        ByteBuf buf = HeaderSpace.reserve(ctx.alloc().directBuffer(HeaderSpace.RESERVED + uncompressed / 3));
+        try {
+            ProtocolUtils.writeVarInt(buf, uncompressed);
+            int compressedStart = buf.writerIndex();
+            long start = System.nanoTime();
+            compressor.deflate(msg, buf);
+            ProxyMetrics.COMPRESSION_TIME.recordSince(start);
+            ProxyMetrics.COMPRESSION_BYTES_IN.add(uncompressed);
+            ProxyMetrics.COMPRESSION_BYTES_OUT.add(buf.writerIndex() - compressedStart);
+        } catch (Exception e) {
+            buf.release();
+            throw e;
+        }
+        out.add(buf);
     }
 
     @Override
@@ -1,6 +1,8 @@
 package com.velocitypowered.proxy.protocol.netty;
 
 import com.google.common.base.Preconditions;
+import com.velocitypowered.proxy.metrics.PacketMetrics;
+import com.velocitypowered.proxy.metrics.ProxyMetrics;
 import com.velocitypowered.proxy.protocol.*;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
@@ -13,10 +15,12 @@ public class MinecraftDecoder extends MessageToMessageDecoder<ByteBuf> {
     private StateRegistry state;
     private final ProtocolConstants.Direction direction;
     private StateRegistry.PacketRegistry.ProtocolVersion protocolVersion;
+    private final PacketMetrics metrics;
 
     public MinecraftDecoder(ProtocolConstants.Direction direction) {
         this.state = StateRegistry.HANDSHAKE;
         this.direction = Preconditions.checkNotNull(direction, "direction");
+        this.metrics = ProxyMetrics.decoded(direction);
         this.setProtocolVersion(ProtocolConstants.MINIMUM_GENERIC_VERSION);
     }
 
@@ -26,13 +30,15 @@ public class MinecraftDecoder extends MessageToMessageDecoder<ByteBuf> {
             return;
         }
 
-        ByteBuf slice = msg.slice();
-
+        int originalReaderIndex = msg.readerIndex();
+        int size = msg.readableBytes();
         int packetId = ProtocolUtils.readVarInt(msg);
+        metrics.record(state, packetId, size);
         MinecraftPacket packet = this.protocolVersion.createPacket(packetId);
         if (packet == null) {
-            msg.skipBytes(msg.readableBytes());
-            out.add(slice.retain());
+            // The proxy doesn't need to look inside this packet, so hand the frame on untouched instead of decoding it.
+            msg.readerIndex(originalReaderIndex);
+            out.add(msg.retain());
         } else {
             try {
                 packet.decode(msg, direction, protocolVersion.id);
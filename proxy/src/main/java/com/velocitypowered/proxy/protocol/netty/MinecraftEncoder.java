@@ -1,6 +1,8 @@
 package com.velocitypowered.proxy.protocol.netty;
 
 import com.google.common.base.Preconditions;
+import com.velocitypowered.proxy.metrics.PacketMetrics;
+import com.velocitypowered.proxy.metrics.ProxyMetrics;
 import com.velocitypowered.proxy.protocol.MinecraftPacket;
 import com.velocitypowered.proxy.protocol.ProtocolConstants;
 import com.velocitypowered.proxy.protocol.ProtocolUtils;
@@ -13,18 +15,28 @@ public class MinecraftEncoder extends MessageToByteEncoder<MinecraftPacket> {
     private StateRegistry state;
     private final ProtocolConstants.Direction direction;
     private StateRegistry.PacketRegistry.ProtocolVersion protocolVersion;
+    private final PacketMetrics metrics;
 
     public MinecraftEncoder(ProtocolConstants.Direction direction) {
         this.state = StateRegistry.HANDSHAKE;
         this.direction = Preconditions.checkNotNull(direction, "direction");
+        this.metrics = ProxyMetrics.encoded(direction);
         this.setProtocolVersion(ProtocolConstants.MINIMUM_GENERIC_VERSION);
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, MinecraftPacket msg, ByteBuf out) {
         int packetId = this.protocolVersion.getPacketId(msg);
+        int start = out.writerIndex();
         ProtocolUtils.writeVarInt(out, packetId);
         msg.encode(out, direction, protocolVersion.id);
+        metrics.record(state, packetId, out.writerIndex() - start);
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, MinecraftPacket msg, boolean preferDirect) {
+        // Leave room for the headers, so the packet can be framed without being copied.
+        return HeaderSpace.reserve(preferDirect ? ctx.alloc().ioBuffer() : ctx.alloc().heapBuffer());
     }
 
     public StateRegistry.PacketRegistry.ProtocolVersion getProtocolVersion() {
@@ -1,26 +1,140 @@
 package com.velocitypowered.proxy.protocol.netty;
 
-import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.google.common.base.Preconditions;
+import com.velocitypowered.proxy.protocol.StateRegistry;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.ByteProcessor;
 
 import java.util.List;
 
 public class MinecraftVarintFrameDecoder extends ByteToMessageDecoder {
+    /**
+     * The largest frame the protocol allows, as the length of a frame must fit in a three byte varint.
+     */
+    public static final int MAXIMUM_FRAME_LENGTH = 2097151;
+    private static final int MAXIMUM_LENGTH_BYTES = 3;
+    // The status request and ping are a packet ID and at most a long.
+    private static final int MAXIMUM_STATUS_FRAME_LENGTH = 16;
+
+    private final VarintByteProcessor lengthReader = new VarintByteProcessor();
+    private final int maximumHandshakeLength;
+    private final int maximumStatusLength;
+    private final int maximumLoginLength;
+    private final int maximumPlayLength;
+    private StateRegistry state = StateRegistry.HANDSHAKE;
+    private int maximumLength;
+    private int pendingLength = -1;
+
+    /**
+     * Creates a frame decoder that accepts any frame the protocol allows, regardless of the state of the connection.
+     * This should only be used for connections we trust, such as those to backend servers.
+     */
+    public MinecraftVarintFrameDecoder() {
+        this(MAXIMUM_FRAME_LENGTH, MAXIMUM_FRAME_LENGTH, MAXIMUM_FRAME_LENGTH, MAXIMUM_FRAME_LENGTH);
+    }
+
+    /**
+     * Creates a frame decoder that rejects frames larger than the specified limits for the current state of the
+     * connection.
+     * @param maximumHandshakeLength the largest frame accepted in the handshake state
+     * @param maximumLoginLength the largest frame accepted in the login state
+     * @param maximumPlayLength the largest frame accepted in the play state
+     */
+    public MinecraftVarintFrameDecoder(int maximumHandshakeLength, int maximumLoginLength, int maximumPlayLength) {
+        this(maximumHandshakeLength, MAXIMUM_STATUS_FRAME_LENGTH, maximumLoginLength, maximumPlayLength);
+    }
+
+    private MinecraftVarintFrameDecoder(int maximumHandshakeLength, int maximumStatusLength, int maximumLoginLength,
+                                        int maximumPlayLength) {
+        this.maximumHandshakeLength = checkLength(maximumHandshakeLength);
+        this.maximumStatusLength = checkLength(maximumStatusLength);
+        this.maximumLoginLength = checkLength(maximumLoginLength);
+        this.maximumPlayLength = checkLength(maximumPlayLength);
+        this.maximumLength = maximumHandshakeLength;
+    }
+
+    private static int checkLength(int length) {
+        Preconditions.checkArgument(length > 0 && length <= MAXIMUM_FRAME_LENGTH, "Invalid maximum frame length %s",
+                length);
+        return length;
+    }
+
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-        if (!in.isReadable()) {
-            return;
+        if (pendingLength == -1) {
+            lengthReader.reset();
+            int lastLengthByte = in.forEachByte(lengthReader);
+            if (!lengthReader.complete) {
+                if (lastLengthByte != -1) {
+                    throw new CorruptedFrameException("Frame length is longer than " + MAXIMUM_LENGTH_BYTES + " bytes");
+                }
+                // We don't have the whole length yet.
+                return;
+            }
+
+            int length = lengthReader.result;
+            if (length > maximumLength) {
+                throw new CorruptedFrameException("Frame of " + length + " bytes is larger than the maximum of " +
+                        maximumLength + " bytes in state " + state);
+            }
+
+            // Consume the length now, so we don't need to read it again if the frame hasn't fully arrived yet.
+            in.readerIndex(lastLengthByte + 1);
+            pendingLength = length;
         }
 
-        in.markReaderIndex();
-        int packetLength = ProtocolUtils.readVarInt(in);
-        if (in.readableBytes() < packetLength) {
-            in.resetReaderIndex();
+        if (in.readableBytes() < pendingLength) {
             return;
         }
 
-        out.add(in.readRetainedSlice(packetLength));
+        out.add(in.readRetainedSlice(pendingLength));
+        pendingLength = -1;
+    }
+
+    public StateRegistry getState() {
+        return state;
+    }
+
+    public void setState(StateRegistry state) {
+        this.state = Preconditions.checkNotNull(state, "state");
+        switch (state) {
+            case HANDSHAKE:
+                this.maximumLength = maximumHandshakeLength;
+                break;
+            case STATUS:
+                this.maximumLength = maximumStatusLength;
+                break;
+            case LOGIN:
+                this.maximumLength = maximumLoginLength;
+                break;
+            default:
+                this.maximumLength = maximumPlayLength;
+                break;
+        }
+    }
+
+    private static class VarintByteProcessor implements ByteProcessor {
+        private int result;
+        private int bytesRead;
+        private boolean complete;
+
+        @Override
+        public boolean process(byte value) {
+            result |= (value & 0x7F) << (bytesRead++ * 7);
+            if ((value & 0x80) == 0) {
+                complete = true;
+                return false;
+            }
+            return bytesRead < MAXIMUM_LENGTH_BYTES;
+        }
+
+        void reset() {
+            result = 0;
+            bytesRead = 0;
+            complete = false;
+        }
     }
 }
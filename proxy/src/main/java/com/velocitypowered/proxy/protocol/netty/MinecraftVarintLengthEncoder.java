@@ -4,7 +4,6 @@ import com.velocitypowered.proxy.protocol.ProtocolUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
 import io.netty.handler.codec.MessageToMessageEncoder;
 
 import java.util.List;
@@ -17,8 +16,15 @@ public class MinecraftVarintLengthEncoder extends MessageToMessageEncoder<ByteBu
 
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf buf, List<Object> list) throws Exception {
+        int length = buf.readableBytes();
+        if (HeaderSpace.canPrepend(buf, ProtocolUtils.varIntBytes(length))) {
+            HeaderSpace.prependVarInt(buf, length);
+            list.add(buf.retain());
+            return;
+        }
+
         ByteBuf lengthBuf = ctx.alloc().buffer(5); // the maximum size of a varint
-        ProtocolUtils.writeVarInt(lengthBuf, buf.readableBytes());
+        ProtocolUtils.writeVarInt(lengthBuf, length);
         list.add(lengthBuf);
         list.add(buf.retain());
     }
@@ -23,6 +23,8 @@ public interface EntityIdRemapper {
 
     void setServerEntityId(int id);
 
+    // Compression passthrough relays frames without looking inside them, so it has to be disabled before this ever
+    // returns a real remapper. See MinecraftConnection#enableCompressionPassthrough.
     static EntityIdRemapper getMapper(int eid, int protocolVersion) {
         return NoopEntityIdRemapper.INSTANCE;
     }
@@ -1,35 +1,58 @@
 package com.velocitypowered.proxy.scheduler;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.velocitypowered.api.plugin.PluginManager;
+import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.scheduler.ScheduledTask;
 import com.velocitypowered.api.scheduler.Scheduler;
 import com.velocitypowered.api.scheduler.TaskStatus;
+import com.velocitypowered.proxy.connection.client.ConnectedPlayer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.IdentityHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Runs plugin tasks. A single timer thread keeps track of when tasks are due and hands them to a bounded pool of
+ * workers to run, so waiting tasks don't occupy a thread no matter how many of them there are. Tasks with a player
+ * affinity skip both and are scheduled on the event loop of the player's connection.
+ */
 public class VelocityScheduler implements Scheduler {
+    @VisibleForTesting
+    static final int MAX_WORKER_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
     private final PluginManager pluginManager;
-    private final ExecutorService taskService;
-    private final Sleeper sleeper;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ThreadPoolExecutor taskService;
     private final Multimap<Object, ScheduledTask> tasksByPlugin = Multimaps.synchronizedListMultimap(
             Multimaps.newListMultimap(new IdentityHashMap<>(), ArrayList::new));
 
-    public VelocityScheduler(PluginManager pluginManager, Sleeper sleeper) {
+    public VelocityScheduler(PluginManager pluginManager) {
         this.pluginManager = pluginManager;
-        this.sleeper = sleeper;
-        this.taskService = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true)
+        this.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder().setDaemon(true)
+                .setNameFormat("Velocity Task Scheduler Timer").build());
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.taskService = new ThreadPoolExecutor(MAX_WORKER_THREADS, MAX_WORKER_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setDaemon(true)
                 .setNameFormat("Velocity Task Scheduler - #%d").build());
+        // Let the pool shrink back to nothing while no tasks are running.
+        this.taskService.allowCoreThreadTimeOut(true);
     }
 
     @Override
@@ -44,8 +67,9 @@ public class VelocityScheduler implements Scheduler {
         for (ScheduledTask task : ImmutableList.copyOf(tasksByPlugin.values())) {
             task.cancel();
         }
+        timer.shutdown();
         taskService.shutdown();
-        return taskService.awaitTermination(10, TimeUnit.SECONDS);
+        return timer.awaitTermination(10, TimeUnit.SECONDS) && taskService.awaitTermination(10, TimeUnit.SECONDS);
     }
 
     private class TaskBuilderImpl implements TaskBuilder {
@@ -53,6 +77,7 @@ public class VelocityScheduler implements Scheduler {
         private final Runnable runnable;
         private long delay; // ms
         private long repeat; // ms
+        private ConnectedPlayer affinity;
 
         private TaskBuilderImpl(Object plugin, Runnable runnable) {
             this.plugin = plugin;
@@ -83,11 +108,31 @@ public class VelocityScheduler implements Scheduler {
             return this;
         }
 
+        @Override
+        public TaskBuilder affinity(Player player) {
+            Preconditions.checkNotNull(player, "player");
+            Preconditions.checkArgument(player instanceof ConnectedPlayer, "player is not a proxy player");
+            this.affinity = (ConnectedPlayer) player;
+            return this;
+        }
+
+        @Override
+        public TaskBuilder clearAffinity() {
+            this.affinity = null;
+            return this;
+        }
+
         @Override
         public ScheduledTask schedule() {
-            VelocityTask task = new VelocityTask(plugin, runnable, delay, repeat);
-            taskService.execute(task);
+            VelocityTask task;
+            if (affinity == null) {
+                task = new VelocityTask(plugin, runnable, repeat, timer, taskService, null);
+            } else {
+                Channel channel = affinity.getConnection().getChannel();
+                task = new VelocityTask(plugin, runnable, repeat, channel.eventLoop(), channel.eventLoop(), channel);
+            }
             tasksByPlugin.put(plugin, task);
+            task.start(delay);
             return task;
         }
     }
@@ -95,19 +140,33 @@ public class VelocityScheduler implements Scheduler {
     private class VelocityTask implements Runnable, ScheduledTask {
         private final Object plugin;
         private final Runnable runnable;
-        private final long delay;
         private final long repeat;
+        private final ScheduledExecutorService timer;
+        private final Executor worker;
+        private final Channel affinityChannel;
+        private final ChannelFutureListener cancelOnClose = future -> cancel();
         private volatile TaskStatus status;
-        private Thread taskThread;
+        private volatile ScheduledFuture<?> timerFuture;
 
-        private VelocityTask(Object plugin, Runnable runnable, long delay, long repeat) {
+        private VelocityTask(Object plugin, Runnable runnable, long repeat, ScheduledExecutorService timer,
+                             Executor worker, Channel affinityChannel) {
             this.plugin = plugin;
             this.runnable = runnable;
-            this.delay = delay;
             this.repeat = repeat;
+            this.timer = timer;
+            this.worker = worker;
+            this.affinityChannel = affinityChannel;
             this.status = TaskStatus.SCHEDULED;
         }
 
+        private void start(long delay) {
+            if (affinityChannel != null) {
+                // Called straight away if the player has already disconnected.
+                affinityChannel.closeFuture().addListener(cancelOnClose);
+            }
+            schedule(delay);
+        }
+
         @Override
         public Object plugin() {
             return plugin;
@@ -122,52 +181,71 @@ public class VelocityScheduler implements Scheduler {
         public void cancel() {
             if (status == TaskStatus.SCHEDULED) {
                 status = TaskStatus.CANCELLED;
-                if (taskThread != null) {
-                    taskThread.interrupt();
+                ScheduledFuture<?> future = timerFuture;
+                if (future != null) {
+                    future.cancel(false);
+                }
+                onFinish();
+            }
+        }
+
+        /**
+         * Arranges for the task to be handed to a worker after {@code delay} milliseconds.
+         */
+        private void schedule(long delay) {
+            try {
+                if (delay > 0) {
+                    // An event loop is both the timer and the worker, so the task can be scheduled on it directly.
+                    Runnable due = timer == worker ? this : this::dispatch;
+                    timerFuture = timer.schedule(due, delay, TimeUnit.MILLISECONDS);
+                } else {
+                    dispatch();
                 }
+            } catch (RejectedExecutionException e) {
+                // The scheduler is shutting down.
+                cancel();
+            }
+        }
+
+        private void dispatch() {
+            if (status == TaskStatus.CANCELLED) {
+                return;
+            }
+            try {
+                worker.execute(this);
+            } catch (RejectedExecutionException e) {
+                cancel();
             }
         }
 
         @Override
         public void run() {
-            taskThread = Thread.currentThread();
-            if (delay > 0) {
-                try {
-                    sleeper.sleep(delay);
-                } catch (InterruptedException e) {
-                    if (status == TaskStatus.CANCELLED) {
-                        onFinish();
-                        return;
-                    }
-                }
+            if (status == TaskStatus.CANCELLED) {
+                return;
             }
 
-            while (status != TaskStatus.CANCELLED) {
-                try {
-                    runnable.run();
-                } catch (Exception e) {
-                    Log.logger.error("Exception in task {} by plugin {}", runnable, plugin);
-                }
+            try {
+                runnable.run();
+            } catch (Exception e) {
+                Log.logger.error("Exception in task {} by plugin {}", runnable, plugin, e);
+            }
 
-                if (repeat > 0) {
-                    try {
-                        sleeper.sleep(repeat);
-                    } catch (InterruptedException e) {
-                        if (status == TaskStatus.CANCELLED) {
-                            break;
-                        }
-                    }
-                } else {
-                    status = TaskStatus.FINISHED;
-                    break;
+            if (repeat > 0) {
+                // Like a sleep between runs, the next run is timed from the end of this one, so runs never overlap.
+                if (status != TaskStatus.CANCELLED) {
+                    schedule(repeat);
                 }
+            } else {
+                status = TaskStatus.FINISHED;
+                onFinish();
             }
-
-            onFinish();
         }
 
         private void onFinish() {
             tasksByPlugin.remove(plugin, this);
+            if (affinityChannel != null) {
+                affinityChannel.closeFuture().removeListener(cancelOnClose);
+            }
         }
     }
 
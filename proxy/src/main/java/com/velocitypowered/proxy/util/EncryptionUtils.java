@@ -7,6 +7,23 @@ import java.security.*;
 public enum EncryptionUtils {
     ;
 
+    // Looking up a provider for every login is surprisingly expensive, so each thread keeps its own instances. Both are
+    // fully reset by init() and digest() respectively.
+    private static final ThreadLocal<Cipher> RSA_CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("RSA");
+        } catch (GeneralSecurityException e) {
+            throw new AssertionError(e);
+        }
+    });
+    private static final ThreadLocal<MessageDigest> SHA1_DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    });
+
     public static KeyPair createRsaKeyPair(final int keysize) {
         try {
             final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
@@ -22,19 +39,15 @@ public enum EncryptionUtils {
     }
 
     public static byte[] decryptRsa(KeyPair keyPair, byte[] bytes) throws GeneralSecurityException {
-        Cipher cipher = Cipher.getInstance("RSA");
+        Cipher cipher = RSA_CIPHER.get();
         cipher.init(Cipher.DECRYPT_MODE, keyPair.getPrivate());
         return cipher.doFinal(bytes);
     }
 
     public static String generateServerId(byte[] sharedSecret, PublicKey key) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-1");
-            digest.update(sharedSecret);
-            digest.update(key.getEncoded());
-            return twosComplementHexdigest(digest.digest());
-        } catch (NoSuchAlgorithmException e) {
-            throw new AssertionError(e);
-        }
+        MessageDigest digest = SHA1_DIGEST.get();
+        digest.update(sharedSecret);
+        digest.update(key.getEncoded());
+        return twosComplementHexdigest(digest.digest());
     }
 }
@@ -0,0 +1,149 @@
+package com.velocitypowered.proxy.connection;
+
+import com.velocitypowered.proxy.protocol.MinecraftPacket;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinecraftConnectionTest {
+    private static final int MAX_PENDING_WRITES = 64;
+
+    @Test
+    void delayedWritesAreFlushedOnReadComplete() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        MinecraftConnection connection = relayingConnection(channel);
+
+        // Each packet read is relayed back with a delayed write, like the play session handlers do.
+        for (int i = 0; i < 3; i++) {
+            channel.pipeline().fireChannelRead(Unpooled.wrappedBuffer(new byte[] { (byte) i }));
+        }
+        assertTrue(channel.outboundMessages().isEmpty());
+
+        channel.pipeline().fireChannelReadComplete();
+        assertEquals(3, channel.outboundMessages().size());
+        for (int i = 0; i < 3; i++) {
+            ByteBuf buf = channel.readOutbound();
+            assertEquals(i, buf.readByte());
+            buf.release();
+        }
+        assertFalse(connection.isClosed());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void tooManyDelayedWritesForceFlush() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        MinecraftConnection connection = new MinecraftConnection(channel);
+
+        for (int i = 0; i < MAX_PENDING_WRITES - 1; i++) {
+            connection.delayedWrite(Unpooled.wrappedBuffer(new byte[] { 1 }));
+        }
+        assertTrue(channel.outboundMessages().isEmpty());
+
+        connection.delayedWrite(Unpooled.wrappedBuffer(new byte[] { 1 }));
+        assertEquals(MAX_PENDING_WRITES, channel.outboundMessages().size());
+
+        // The count starts again after a flush.
+        connection.delayedWrite(Unpooled.wrappedBuffer(new byte[] { 1 }));
+        assertEquals(MAX_PENDING_WRITES, channel.outboundMessages().size());
+        connection.flush();
+        assertEquals(MAX_PENDING_WRITES + 1, channel.outboundMessages().size());
+        assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    void writesFromOtherThreadsAreNotCounted() throws Exception {
+        DefaultEventLoopGroup group = new DefaultEventLoopGroup(1);
+        LocalAddress address = new LocalAddress("minecraft-connection-test");
+        AtomicInteger flushes = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        try {
+            Channel server = new ServerBootstrap()
+                    .group(group)
+                    .channel(LocalServerChannel.class)
+                    .childHandler(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            ReferenceCountUtil.release(msg);
+                        }
+                    })
+                    .bind(address).sync().channel();
+            Channel client = new Bootstrap()
+                    .group(group)
+                    .channel(LocalChannel.class)
+                    .handler(new ChannelOutboundHandlerAdapter() {
+                        @Override
+                        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                            written.incrementAndGet();
+                            ctx.write(msg, promise);
+                        }
+
+                        @Override
+                        public void flush(ChannelHandlerContext ctx) {
+                            flushes.incrementAndGet();
+                            ctx.flush();
+                        }
+                    })
+                    .connect(address).sync().channel();
+            MinecraftConnection connection = new MinecraftConnection(client);
+
+            // Off the event loop, writes don't count towards the cap, so none of these force a flush.
+            for (int i = 0; i < MAX_PENDING_WRITES * 2; i++) {
+                connection.delayedWrite(Unpooled.wrappedBuffer(new byte[] { 1 }));
+            }
+            client.eventLoop().submit(() -> { }).sync();
+            assertEquals(MAX_PENDING_WRITES * 2, written.get());
+            assertEquals(0, flushes.get());
+
+            // On the event loop, the count starts from zero.
+            client.eventLoop().submit(() -> {
+                for (int i = 0; i < MAX_PENDING_WRITES - 1; i++) {
+                    connection.delayedWrite(Unpooled.wrappedBuffer(new byte[] { 1 }));
+                }
+            }).sync();
+            assertEquals(0, flushes.get());
+            client.eventLoop().submit(() -> connection.delayedWrite(Unpooled.wrappedBuffer(new byte[] { 1 }))).sync();
+            assertEquals(1, flushes.get());
+
+            client.close().sync();
+            server.close().sync();
+        } finally {
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    private static MinecraftConnection relayingConnection(EmbeddedChannel channel) {
+        MinecraftConnection connection = new MinecraftConnection(channel);
+        connection.setSessionHandler(new MinecraftSessionHandler() {
+            @Override
+            public void handle(MinecraftPacket packet) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void handleUnknown(ByteBuf buf) {
+                connection.delayedWrite(buf.retain());
+            }
+
+            @Override
+            public void readCompleted() {
+                connection.flush();
+            }
+        });
+        channel.pipeline().addLast(connection);
+        return connection;
+    }
+}
@@ -0,0 +1,116 @@
+package com.velocitypowered.proxy.connection.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginAdmissionControllerTest {
+
+    @Test
+    void admitsUpToLimitThenQueuesInOrder() {
+        LoginAdmissionController controller = new LoginAdmissionController(2, 10);
+        List<String> admitted = new ArrayList<>();
+        LoginAdmissionController.Ticket a = controller.enqueue(() -> admitted.add("a"));
+        LoginAdmissionController.Ticket b = controller.enqueue(() -> admitted.add("b"));
+        LoginAdmissionController.Ticket c = controller.enqueue(() -> admitted.add("c"));
+        LoginAdmissionController.Ticket d = controller.enqueue(() -> admitted.add("d"));
+        assertNotNull(a);
+        assertNotNull(b);
+        assertNotNull(c);
+        assertNotNull(d);
+
+        assertEquals(2, controller.getInProgress());
+        assertEquals(2, controller.getQueued());
+        assertEquals(1, c.getPosition());
+        assertEquals(2, d.getPosition());
+
+        b.release();
+        a.release();
+        assertEquals(2, controller.getInProgress());
+        assertEquals(0, controller.getQueued());
+        assertTrue(d.isAdmitted());
+        assertEquals(0, d.getPosition());
+        assertEquals(4, admitted.size());
+        assertEquals("c", admitted.get(2));
+        assertEquals("d", admitted.get(3));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() {
+        LoginAdmissionController controller = new LoginAdmissionController(1, 1);
+        assertNotNull(controller.enqueue(() -> {}));
+        assertNotNull(controller.enqueue(() -> {}));
+        assertNull(controller.enqueue(() -> {}));
+    }
+
+    @Test
+    void releasesOnlyOnce() {
+        LoginAdmissionController controller = new LoginAdmissionController(1, 10);
+        LoginAdmissionController.Ticket first = controller.enqueue(() -> {});
+        LoginAdmissionController.Ticket second = controller.enqueue(() -> {});
+        LoginAdmissionController.Ticket third = controller.enqueue(() -> {});
+
+        first.release();
+        first.release();
+        assertTrue(second.isAdmitted());
+        assertFalse(third.isAdmitted());
+        assertEquals(1, controller.getInProgress());
+
+        second.release();
+        third.release();
+        assertEquals(0, controller.getInProgress());
+        assertNotNull(controller.enqueue(() -> {}));
+    }
+
+    @Test
+    void queuedLoginsCanLeave() {
+        LoginAdmissionController controller = new LoginAdmissionController(1, 10);
+        LoginAdmissionController.Ticket first = controller.enqueue(() -> {});
+        LoginAdmissionController.Ticket leaving = controller.enqueue(() -> {});
+        LoginAdmissionController.Ticket waiting = controller.enqueue(() -> {});
+
+        assertEquals(2, waiting.getPosition());
+        leaving.release();
+        assertEquals(1, controller.getQueued());
+        // The player who left no longer counts towards the position of those behind them.
+        assertEquals(1, waiting.getPosition());
+        assertEquals(0, leaving.getPosition());
+        first.release();
+        assertFalse(leaving.isAdmitted());
+        assertTrue(waiting.isAdmitted());
+        assertEquals(1, controller.getInProgress());
+    }
+
+    @Test
+    void positionsFollowAdmissionsAndDepartures() {
+        LoginAdmissionController controller = new LoginAdmissionController(1, 10);
+        LoginAdmissionController.Ticket first = controller.enqueue(() -> {});
+        List<LoginAdmissionController.Ticket> queued = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            queued.add(controller.enqueue(() -> {}));
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 1, queued.get(i).getPosition());
+        }
+
+        // Leave from the middle and the end, then let the head in.
+        queued.get(1).release();
+        queued.get(4).release();
+        first.release();
+        assertTrue(queued.get(0).isAdmitted());
+        assertEquals(1, queued.get(2).getPosition());
+        assertEquals(2, queued.get(3).getPosition());
+
+        // Logins joining afterwards line up behind those still waiting.
+        LoginAdmissionController.Ticket late = controller.enqueue(() -> {});
+        assertEquals(3, late.getPosition());
+        queued.get(0).release();
+        assertEquals(1, queued.get(3).getPosition());
+        assertEquals(2, late.getPosition());
+        queued.get(3).release();
+        assertEquals(1, late.getPosition());
+    }
+}
@@ -0,0 +1,151 @@
+package com.velocitypowered.proxy.connection.client;
+
+import com.google.common.base.Strings;
+import com.velocitypowered.api.util.GameProfile;
+import com.velocitypowered.api.util.MessagePosition;
+import com.velocitypowered.proxy.connection.MinecraftConnection;
+import com.velocitypowered.proxy.protocol.ProtocolConstants;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import com.velocitypowered.proxy.protocol.netty.MinecraftDecoder;
+import com.velocitypowered.proxy.protocol.netty.MinecraftEncoder;
+import com.velocitypowered.proxy.protocol.netty.MinecraftVarintFrameDecoder;
+import com.velocitypowered.proxy.protocol.netty.MinecraftVarintLengthEncoder;
+import com.velocitypowered.proxy.protocol.packet.Chat;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import net.kyori.text.TextComponent;
+import net.kyori.text.serializer.ComponentSerializers;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+
+import static com.velocitypowered.proxy.network.Connections.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayerBroadcastTest {
+    private static final int COMPRESSION_LEVEL = 6;
+
+    private final List<ByteBuf> written = new ArrayList<>();
+
+    @Test
+    void encodesOncePerProtocolAndThreshold() throws Exception {
+        TextComponent component = TextComponent.of(Strings.repeat("Velocity ", 40));
+        String json = ComponentSerializers.JSON.serialize(component);
+
+        EmbeddedChannel uncompressed1 = createChannel(ProtocolConstants.MINECRAFT_1_8, -1);
+        EmbeddedChannel uncompressed2 = createChannel(ProtocolConstants.MINECRAFT_1_8, -1);
+        EmbeddedChannel compressed1 = createChannel(ProtocolConstants.MINECRAFT_1_13, 64);
+        EmbeddedChannel compressed2 = createChannel(ProtocolConstants.MINECRAFT_1_13, 64);
+        EmbeddedChannel belowThreshold = createChannel(ProtocolConstants.MINECRAFT_1_12_2, 1024);
+        List<EmbeddedChannel> channels = new ArrayList<>();
+        channels.add(uncompressed1);
+        channels.add(uncompressed2);
+        channels.add(compressed1);
+        channels.add(compressed2);
+        channels.add(belowThreshold);
+
+        List<ConnectedPlayer> players = new ArrayList<>();
+        for (EmbeddedChannel channel : channels) {
+            players.add(new ConnectedPlayer(GameProfile.forOfflinePlayer("tuxed"),
+                    channel.pipeline().get(MinecraftConnection.class), null));
+        }
+        PlayerBroadcast.broadcast(players, ConnectedPlayer.createChat(component, MessagePosition.CHAT),
+                COMPRESSION_LEVEL);
+
+        assertEquals(json, readChat(uncompressed1, ProtocolConstants.MINECRAFT_1_8, -1).getMessage());
+        assertEquals(json, readChat(uncompressed2, ProtocolConstants.MINECRAFT_1_8, -1).getMessage());
+        assertEquals(json, readChat(compressed1, ProtocolConstants.MINECRAFT_1_13, 64).getMessage());
+        assertEquals(json, readChat(compressed2, ProtocolConstants.MINECRAFT_1_13, 64).getMessage());
+        assertEquals(json, readChat(belowThreshold, ProtocolConstants.MINECRAFT_1_12_2, 1024).getMessage());
+
+        // Every player in a group was written a duplicate of one shared frame, which must now be fully released.
+        assertFalse(written.isEmpty());
+        for (ByteBuf buf : written) {
+            assertEquals(0, buf.refCnt());
+        }
+        for (EmbeddedChannel channel : channels) {
+            assertFalse(channel.finish());
+        }
+    }
+
+    @Test
+    void skipsPlayersNotInPlayState() {
+        EmbeddedChannel channel = createChannel(ProtocolConstants.MINECRAFT_1_13, -1);
+        MinecraftConnection connection = channel.pipeline().get(MinecraftConnection.class);
+        connection.setState(StateRegistry.LOGIN);
+        List<ConnectedPlayer> players = new ArrayList<>();
+        players.add(new ConnectedPlayer(GameProfile.forOfflinePlayer("tuxed"), connection, null));
+
+        PlayerBroadcast.broadcast(players, new Chat("{\"text\":\"hi\"}", Chat.CHAT), COMPRESSION_LEVEL);
+        assertNull(channel.readOutbound());
+    }
+
+    private EmbeddedChannel createChannel(int protocolVersion, int threshold) {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline()
+                .addLast(new ChannelOutboundHandlerAdapter() {
+                    @Override
+                    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                        // Everything reaching the socket, so that its reference counts can be checked afterwards.
+                        written.add((ByteBuf) msg);
+                        ctx.write(msg, promise);
+                    }
+                })
+                .addLast(FRAME_DECODER, new MinecraftVarintFrameDecoder(2048, 32768, 2097151))
+                .addLast(FRAME_ENCODER, MinecraftVarintLengthEncoder.INSTANCE)
+                .addLast(MINECRAFT_DECODER, new MinecraftDecoder(ProtocolConstants.Direction.SERVERBOUND))
+                .addLast(MINECRAFT_ENCODER, new MinecraftEncoder(ProtocolConstants.Direction.CLIENTBOUND));
+        MinecraftConnection connection = new MinecraftConnection(channel);
+        channel.pipeline().addLast(HANDLER, connection);
+        connection.setProtocolVersion(protocolVersion);
+        connection.setState(StateRegistry.PLAY);
+        if (threshold != -1) {
+            connection.setCompressionThreshold(threshold, COMPRESSION_LEVEL);
+        }
+        return channel;
+    }
+
+    private static Chat readChat(EmbeddedChannel channel, int protocolVersion, int threshold) throws Exception {
+        ByteBuf received = Unpooled.buffer();
+        for (Object msg; (msg = channel.readOutbound()) != null; ) {
+            ByteBuf buf = (ByteBuf) msg;
+            received.writeBytes(buf);
+            buf.release();
+        }
+
+        assertEquals(ProtocolUtils.readVarInt(received), received.readableBytes());
+        ByteBuf packet = received;
+        if (threshold != -1) {
+            int uncompressed = ProtocolUtils.readVarInt(received);
+            if (uncompressed == 0) {
+                assertTrue(received.readableBytes() <= threshold);
+            } else {
+                assertTrue(uncompressed > threshold);
+                byte[] compressed = new byte[received.readableBytes()];
+                received.readBytes(compressed);
+                byte[] inflated = new byte[uncompressed];
+                Inflater inflater = new Inflater();
+                inflater.setInput(compressed);
+                assertEquals(uncompressed, inflater.inflate(inflated));
+                assertTrue(inflater.finished());
+                inflater.end();
+                packet = Unpooled.wrappedBuffer(inflated);
+            }
+        }
+
+        int packetId = ProtocolUtils.readVarInt(packet);
+        Chat chat = new Chat();
+        assertEquals(StateRegistry.PLAY.CLIENTBOUND.getVersion(protocolVersion).getPacketId(chat), packetId);
+        chat.decode(packet, ProtocolConstants.Direction.CLIENTBOUND, protocolVersion);
+        assertEquals(Chat.CHAT, chat.getType());
+        assertFalse(packet.isReadable());
+        return chat;
+    }
+}
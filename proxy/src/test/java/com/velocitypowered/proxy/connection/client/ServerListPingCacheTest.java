@@ -0,0 +1,56 @@
+package com.velocitypowered.proxy.connection.client;
+
+import com.velocitypowered.proxy.protocol.ProtocolConstants;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.packet.LegacyDisconnect;
+import io.netty.buffer.ByteBuf;
+import net.kyori.text.TextComponent;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerListPingCacheTest {
+    private static final int VERSION = ProtocolConstants.MINECRAFT_1_13_1;
+
+    @Test
+    void cachesEncodedStatusResponses() {
+        ServerListPingCache cache = new ServerListPingCache(60_000, () -> 0);
+        assertNull(cache.getStatusResponse(VERSION));
+
+        ByteBuf written = cache.putStatusResponse(VERSION, 0, "{}");
+        ByteBuf cached = cache.getStatusResponse(VERSION);
+        assertNotNull(cached);
+        assertEquals(written, cached);
+        assertNull(cache.getStatusResponse(ProtocolConstants.MINECRAFT_1_12_2));
+
+        // The response is the packet ID followed by the status.
+        assertEquals(0, ProtocolUtils.readVarInt(cached));
+        assertEquals("{}", ProtocolUtils.readString(cached));
+        // Reading one copy, or releasing it, must not affect the cached response.
+        cached.release();
+        assertEquals(written, cache.getStatusResponse(VERSION));
+    }
+
+    @Test
+    void dropsResponsesWhenPlayerCountChanges() {
+        AtomicInteger players = new AtomicInteger();
+        ServerListPingCache cache = new ServerListPingCache(60_000, players::get);
+        cache.putStatusResponse(VERSION, 0, "{}");
+        cache.putLegacyResponse(0, LegacyDisconnect.from(TextComponent.of("test")));
+        assertNotNull(cache.getStatusResponse(VERSION));
+        assertNotNull(cache.getLegacyResponse());
+
+        players.incrementAndGet();
+        assertNull(cache.getStatusResponse(VERSION));
+        assertNull(cache.getLegacyResponse());
+    }
+
+    @Test
+    void doesNotCacheWithoutTtl() {
+        ServerListPingCache cache = new ServerListPingCache(0, () -> 0);
+        assertNotNull(cache.putStatusResponse(VERSION, 0, "{}"));
+        assertNull(cache.getStatusResponse(VERSION));
+    }
+}
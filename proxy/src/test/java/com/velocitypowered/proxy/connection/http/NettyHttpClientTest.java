@@ -0,0 +1,146 @@
+package com.velocitypowered.proxy.connection.http;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.resolver.DefaultAddressResolverGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NettyHttpClientTest {
+    private EventLoopGroup group;
+    private Channel server;
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        group = new NioEventLoopGroup(2);
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        connections.incrementAndGet();
+                        ch.pipeline()
+                                .addLast(new HttpServerCodec())
+                                .addLast(new HttpObjectAggregator(1024))
+                                .addLast(new SessionServerHandler());
+                    }
+                })
+                .bind(InetAddress.getLoopbackAddress(), 0)
+                .sync()
+                .channel();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        server.close().sync();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+    }
+
+    private NettyHttpClient createClient(int maxConnections, int maxPendingRequests, int readTimeoutMillis) {
+        Bootstrap bootstrap = new Bootstrap().group(group).channel(NioSocketChannel.class);
+        return new NettyHttpClient(bootstrap, DefaultAddressResolverGroup.INSTANCE, maxConnections, maxPendingRequests,
+                1000, readTimeoutMillis);
+    }
+
+    private URL url(String path) throws Exception {
+        InetSocketAddress address = (InetSocketAddress) server.localAddress();
+        return new URL("http", address.getHostString(), address.getPort(), path);
+    }
+
+    private static Throwable failureOf(CompletableFuture<String> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    @Test
+    void reusesKeepAliveConnections() throws Exception {
+        NettyHttpClient client = createClient(8, 8, 1000);
+        assertEquals("ok /ok?user=tuxed", client.get(url("/ok?user=tuxed")).get(5, TimeUnit.SECONDS));
+        assertEquals("ok /ok", client.get(url("/ok")).get(5, TimeUnit.SECONDS));
+        assertEquals(1, connections.get());
+    }
+
+    @Test
+    void closesConnectionAfterErrorStatus() throws Exception {
+        NettyHttpClient client = createClient(8, 8, 1000);
+        assertTrue(failureOf(client.get(url("/missing"))).getMessage().contains("404"));
+        // The unread body of the error must not be mistaken for the next response.
+        assertEquals("ok /ok", client.get(url("/ok")).get(5, TimeUnit.SECONDS));
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    void timesOutSlowResponses() throws Exception {
+        NettyHttpClient client = createClient(8, 8, 200);
+        assertTrue(failureOf(client.get(url("/slow"))) instanceof TimeoutException);
+        assertEquals("ok /ok", client.get(url("/ok")).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failsWhenServerDropsConnection() throws Exception {
+        NettyHttpClient client = createClient(8, 8, 1000);
+        assertTrue(failureOf(client.get(url("/drop"))) instanceof IOException);
+    }
+
+    @Test
+    void rejectsRequestsBeyondPendingLimit() throws Exception {
+        NettyHttpClient client = createClient(1, 1, 1000);
+        CompletableFuture<String> inFlight = client.get(url("/slow"));
+        CompletableFuture<String> pending = client.get(url("/slow"));
+        CompletableFuture<String> rejected = client.get(url("/ok"));
+        assertTrue(failureOf(rejected) instanceof IllegalStateException);
+        assertTrue(failureOf(inFlight) instanceof TimeoutException);
+        assertTrue(failureOf(pending) instanceof TimeoutException);
+    }
+
+    /**
+     * Stands in for the session server. The path of each request decides how it is answered.
+     */
+    private static class SessionServerHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            String path = request.uri();
+            if (path.startsWith("/ok")) {
+                respond(ctx, HttpResponseStatus.OK, "ok " + path);
+            } else if (path.equals("/missing")) {
+                respond(ctx, HttpResponseStatus.NOT_FOUND, "not found");
+            } else if (path.equals("/drop")) {
+                ctx.close();
+            }
+            // Anything else, such as /slow, is never answered.
+        }
+
+        private static void respond(ChannelHandlerContext ctx, HttpResponseStatus status, String body) {
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
+                    Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+            HttpUtil.setContentLength(response, response.content().readableBytes());
+            ctx.writeAndFlush(response);
+        }
+    }
+}
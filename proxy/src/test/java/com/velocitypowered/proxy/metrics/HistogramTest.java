@@ -0,0 +1,46 @@
+package com.velocitypowered.proxy.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+
+    @Test
+    void writesCumulativeBuckets() {
+        Histogram histogram = Histogram.exponential(1_000, 10, 2);
+        histogram.record(500);
+        histogram.record(1_000);
+        histogram.record(5_000);
+        histogram.record(50_000);
+        assertEquals(4, histogram.getCount());
+
+        PrometheusWriter writer = new PrometheusWriter();
+        histogram.write(writer, "test_seconds", "kind=\"a\"");
+        String[] lines = writer.toString().split("\n");
+        assertEquals("test_seconds_bucket{kind=\"a\",le=\"1.0E-6\"} 2", lines[0]);
+        assertEquals("test_seconds_bucket{kind=\"a\",le=\"1.0E-5\"} 3", lines[1]);
+        assertEquals("test_seconds_bucket{kind=\"a\",le=\"+Inf\"} 4", lines[2]);
+        assertEquals("test_seconds_sum{kind=\"a\"} 5.65E-5", lines[3]);
+        assertEquals("test_seconds_count{kind=\"a\"} 4", lines[4]);
+    }
+
+    @Test
+    void estimatesQuantilesFromBuckets() {
+        Histogram histogram = Histogram.exponential(1_000, 10, 2);
+        assertEquals(0, histogram.estimateQuantileNanos(0.5));
+        for (int i = 0; i < 9; i++) {
+            histogram.record(500);
+        }
+        histogram.record(5_000);
+        assertEquals(1_000, histogram.estimateQuantileNanos(0.5));
+        assertEquals(10_000, histogram.estimateQuantileNanos(0.95));
+        histogram.record(1_000_000);
+        assertEquals(Long.MAX_VALUE, histogram.estimateQuantileNanos(1));
+    }
+
+    @Test
+    void escapesLabelValues() {
+        assertEquals("name=\"a\\\"b\\\\c\\n\"", PrometheusWriter.label("name", "a\"b\\c\n"));
+    }
+}
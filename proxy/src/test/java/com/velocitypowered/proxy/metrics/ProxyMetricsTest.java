@@ -0,0 +1,30 @@
+package com.velocitypowered.proxy.metrics;
+
+import com.velocitypowered.proxy.connection.client.LoginAdmissionController;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProxyMetricsTest {
+
+    @Test
+    void scrapesLoginQueueOfGivenController() {
+        // No proxy is running here, so this also checks that scraping doesn't depend on one.
+        LoginAdmissionController admission = new LoginAdmissionController(1, 10);
+        LoginAdmissionController.Ticket first = admission.enqueue(() -> {});
+        LoginAdmissionController.Ticket second = admission.enqueue(() -> {});
+
+        List<String> lines = Arrays.asList(ProxyMetrics.scrape(admission).split("\n"));
+        assertTrue(lines.contains("velocity_logins_in_progress 1"));
+        assertTrue(lines.contains("velocity_logins_queued 1"));
+
+        second.release();
+        first.release();
+        lines = Arrays.asList(ProxyMetrics.scrape(admission).split("\n"));
+        assertTrue(lines.contains("velocity_logins_in_progress 0"));
+        assertTrue(lines.contains("velocity_logins_queued 0"));
+    }
+}
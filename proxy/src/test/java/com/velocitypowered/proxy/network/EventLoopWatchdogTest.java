@@ -0,0 +1,86 @@
+package com.velocitypowered.proxy.network;
+
+import com.google.common.collect.ImmutableList;
+import com.velocitypowered.api.plugin.PluginContainer;
+import com.velocitypowered.api.plugin.PluginDescription;
+import com.velocitypowered.api.plugin.PluginManager;
+import com.velocitypowered.proxy.testutil.FakePluginManager;
+import io.netty.channel.DefaultEventLoop;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLoopWatchdogTest {
+    private static final long THRESHOLD_MILLIS = 100;
+
+    @Test
+    void reportsStallOnceAndBlamesInnermostPlugin() throws Exception {
+        // Two plugins, one in a package nested inside the other's. The loop blocks in java.util.concurrent.locks, which
+        // is in both packages, so only the longest match is right. The outer plugin comes first to make sure the
+        // order plugins are listed in doesn't decide.
+        PluginContainer outer = plugin("outer", new ArrayList<>());
+        PluginContainer inner = plugin("inner", new Semaphore(0));
+        PluginManager pluginManager = new FakePluginManager() {
+            @Override
+            public @NonNull Collection<PluginContainer> getPlugins() {
+                return ImmutableList.of(outer, inner);
+            }
+        };
+
+        List<Optional<PluginContainer>> reports = new CopyOnWriteArrayList<>();
+        CountDownLatch reported = new CountDownLatch(1);
+        DefaultEventLoop loop = new DefaultEventLoop();
+        EventLoopWatchdog watchdog = new EventLoopWatchdog(loop, pluginManager, THRESHOLD_MILLIS) {
+            @Override
+            void reportStall(Thread thread, long stalledMillis, Optional<PluginContainer> plugin,
+                             StackTraceElement[] stack) {
+                assertTrue(stalledMillis > THRESHOLD_MILLIS);
+                reports.add(plugin);
+                reported.countDown();
+            }
+        };
+
+        Semaphore blocker = new Semaphore(0);
+        try {
+            watchdog.start();
+            // Give the watchdog time to learn the loop's thread from a heartbeat.
+            Thread.sleep(THRESHOLD_MILLIS * 3);
+            assertTrue(reports.isEmpty());
+
+            loop.execute(blocker::acquireUninterruptibly);
+            assertTrue(reported.await(5, TimeUnit.SECONDS));
+            // The loop is still blocked, but the same stall must not be reported again.
+            Thread.sleep(THRESHOLD_MILLIS * 3);
+            assertEquals(1, reports.size());
+            assertEquals(Optional.of(inner), reports.get(0));
+        } finally {
+            blocker.release();
+            watchdog.shutdown();
+            loop.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    private static PluginContainer plugin(String id, Object instance) {
+        return new PluginContainer() {
+            @Override
+            public @NonNull PluginDescription getDescription() {
+                return () -> id;
+            }
+
+            @Override
+            public Optional<?> getInstance() {
+                return Optional.of(instance);
+            }
+        };
+    }
+}
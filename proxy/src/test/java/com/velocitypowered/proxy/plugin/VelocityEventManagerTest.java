@@ -0,0 +1,171 @@
+package com.velocitypowered.proxy.plugin;
+
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.proxy.testutil.FakePluginManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VelocityEventManagerTest {
+    private VelocityEventManager eventManager;
+
+    @BeforeEach
+    void setUp() {
+        eventManager = new VelocityEventManager(new FakePluginManager());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        eventManager.shutdown();
+    }
+
+    @Test
+    void listenersRunInPostOrder() throws Exception {
+        eventManager.register(FakePluginManager.PLUGIN_A, TestEvent.class, PostOrder.LAST, event -> event.calls.add("last"));
+        eventManager.register(FakePluginManager.PLUGIN_A, new OrderedListener());
+        eventManager.register(FakePluginManager.PLUGIN_B, TestEvent.class, PostOrder.FIRST, event -> event.calls.add("first"));
+
+        TestEvent event = eventManager.fire(new TestEvent()).get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("first", "early", "late", "last"), event.calls);
+    }
+
+    @Test
+    void listenersForSupertypesReceiveEvent() throws Exception {
+        eventManager.register(FakePluginManager.PLUGIN_A, Object.class, event -> ((TestEvent) event).calls.add("object"));
+        eventManager.register(FakePluginManager.PLUGIN_A, Marker.class, event -> ((TestEvent) event).calls.add("marker"));
+
+        TestEvent event = eventManager.fire(new TestEvent()).get(5, TimeUnit.SECONDS);
+        assertEquals(2, event.calls.size());
+        assertTrue(event.calls.contains("object"));
+        assertTrue(event.calls.contains("marker"));
+    }
+
+    @Test
+    void asyncListenerDelaysLaterListeners() throws Exception {
+        AsyncListener listener = new AsyncListener();
+        eventManager.register(FakePluginManager.PLUGIN_A, listener);
+        eventManager.register(FakePluginManager.PLUGIN_A, TestEvent.class, PostOrder.LATE, event -> event.calls.add("late"));
+
+        CompletableFuture<TestEvent> fired = eventManager.fire(new TestEvent());
+        TestEvent event = listener.started.get(5, TimeUnit.SECONDS);
+        assertFalse(fired.isDone());
+        assertEquals(Arrays.asList("async"), event.calls);
+
+        listener.finish.complete(null);
+        assertSame(event, fired.get(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("async", "late"), event.calls);
+    }
+
+    @Test
+    void failingListenersDoNotStopDispatch() throws Exception {
+        eventManager.register(FakePluginManager.PLUGIN_A, TestEvent.class, PostOrder.EARLY, event -> {
+            throw new IllegalStateException("expected");
+        });
+        eventManager.register(FakePluginManager.PLUGIN_A, new FailingAsyncListener());
+        eventManager.register(FakePluginManager.PLUGIN_A, TestEvent.class, PostOrder.LAST, event -> event.calls.add("last"));
+
+        TestEvent event = eventManager.fire(new TestEvent()).get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("last"), event.calls);
+    }
+
+    @Test
+    void unregisteredListenersAreNotCalled() throws Exception {
+        OrderedListener listener = new OrderedListener();
+        eventManager.register(FakePluginManager.PLUGIN_A, listener);
+        eventManager.unregisterListener(FakePluginManager.PLUGIN_A, listener);
+
+        TestEvent event = eventManager.fire(new TestEvent()).get(5, TimeUnit.SECONDS);
+        assertTrue(event.calls.isEmpty());
+    }
+
+    @Test
+    void nonBlockingListenersRunOnFiringThread() {
+        NonBlockingListener listener = new NonBlockingListener();
+        eventManager.register(FakePluginManager.PLUGIN_A, listener);
+
+        CompletableFuture<TestEvent> fired = eventManager.fire(new TestEvent());
+        assertTrue(fired.isDone());
+        assertSame(Thread.currentThread(), listener.thread);
+    }
+
+    @Test
+    void blockingListenerPreventsInlineDispatch() throws Exception {
+        NonBlockingListener listener = new NonBlockingListener();
+        eventManager.register(FakePluginManager.PLUGIN_A, listener);
+        eventManager.register(FakePluginManager.PLUGIN_A, new OrderedListener());
+
+        eventManager.fire(new TestEvent()).get(5, TimeUnit.SECONDS);
+        assertNotSame(Thread.currentThread(), listener.thread);
+    }
+
+    @Test
+    void rejectsListenersWithUnsupportedReturnTypes() {
+        assertThrows(IllegalArgumentException.class,
+                () -> eventManager.register(FakePluginManager.PLUGIN_A, new InvalidListener()));
+    }
+
+    public interface Marker {
+    }
+
+    public static class TestEvent implements Marker {
+        private final List<String> calls = new CopyOnWriteArrayList<>();
+    }
+
+    public static class OrderedListener {
+        @Subscribe(order = PostOrder.LATE)
+        public void onLate(TestEvent event) {
+            event.calls.add("late");
+        }
+
+        @Subscribe(order = PostOrder.EARLY)
+        public void onEarly(TestEvent event) {
+            event.calls.add("early");
+        }
+    }
+
+    public static class NonBlockingListener {
+        private volatile Thread thread;
+
+        @Subscribe(blocking = false)
+        public void onEvent(TestEvent event) {
+            thread = Thread.currentThread();
+        }
+    }
+
+    public static class AsyncListener {
+        private final CompletableFuture<TestEvent> started = new CompletableFuture<>();
+        private final CompletableFuture<Void> finish = new CompletableFuture<>();
+
+        @Subscribe
+        public CompletableFuture<Void> onEvent(TestEvent event) {
+            event.calls.add("async");
+            started.complete(event);
+            return finish;
+        }
+    }
+
+    public static class FailingAsyncListener {
+        @Subscribe
+        public CompletableFuture<Void> onEvent(TestEvent event) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("expected"));
+            return future;
+        }
+    }
+
+    public static class InvalidListener {
+        @Subscribe
+        public String onEvent(TestEvent event) {
+            return "nope";
+        }
+    }
+}
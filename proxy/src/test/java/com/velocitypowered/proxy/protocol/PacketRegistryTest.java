@@ -50,4 +50,13 @@ class PacketRegistryTest {
         assertEquals(Handshake.class, registry.getVersion(MINECRAFT_1_12_1).createPacket(0x01).getClass());
         assertEquals(Handshake.class, registry.getVersion(MINECRAFT_1_12_2).createPacket(0x01).getClass());
     }
+
+    @Test
+    void encodeOnlyPacketsAreNotDecoded() {
+        StateRegistry.PacketRegistry registry = new StateRegistry.PacketRegistry(ProtocolConstants.Direction.CLIENTBOUND, StateRegistry.HANDSHAKE);
+        registry.register(Handshake.class, Handshake::new, new StateRegistry.PacketMapping(0x00, MINECRAFT_1_12, true));
+        assertFalse(registry.getVersion(MINECRAFT_1_12).isDecodable(0x00));
+        assertNull(registry.getVersion(MINECRAFT_1_12).createPacket(0x00));
+        assertEquals(0x00, registry.getVersion(MINECRAFT_1_12).getPacketId(new Handshake()));
+    }
 }
\ No newline at end of file
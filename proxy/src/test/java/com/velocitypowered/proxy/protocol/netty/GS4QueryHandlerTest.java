@@ -0,0 +1,221 @@
+package com.velocitypowered.proxy.protocol.netty;
+
+import com.google.common.collect.ImmutableList;
+import com.velocitypowered.proxy.protocol.ProtocolConstants;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.socket.DatagramPacket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GS4QueryHandlerTest {
+    private static final long TOKEN_PERIOD_MILLIS = 30_000;
+    private static final long RESPONSE_REFRESH_MILLIS = 1000;
+    private static final long REQUEST_INTERVAL_MILLIS = 100;
+    private static final InetSocketAddress BIND = new InetSocketAddress("127.0.0.1", 25577);
+    private static final InetSocketAddress PROXY = new InetSocketAddress("127.0.0.1", 25565);
+    private static final int SESSION_ID = 0x01020304;
+
+    private final AtomicLong clock = new AtomicLong(TOKEN_PERIOD_MILLIS * 1000);
+    private final AtomicInteger builds = new AtomicInteger();
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setup() {
+        channel = createChannel(RESPONSE_REFRESH_MILLIS, REQUEST_INTERVAL_MILLIS);
+    }
+
+    private EmbeddedChannel createChannel(long responseRefreshMillis, long requestIntervalMillis) {
+        return new EmbeddedChannel(new GS4QueryHandler(clock::get, responseRefreshMillis, requestIntervalMillis) {
+            @Override
+            void buildResponses() {
+                builds.incrementAndGet();
+                buildResponses("A Velocity Server", 500, BIND, ImmutableList.of("tuxed", "Notch"));
+            }
+        });
+    }
+
+    @Test
+    void handshakeReturnsChallengeToken() {
+        ByteBuf response = query(sender(1), 0x09, SESSION_ID);
+        assertNotNull(response);
+        assertEquals(0x09, response.readByte());
+        assertEquals(SESSION_ID, response.readInt());
+        Integer.parseInt(readString(response));
+        assertFalse(response.isReadable());
+        response.release();
+
+        // The token is derived from the address, so asking again gives the same one.
+        assertEquals(handshake(sender(2)), handshake(sender(2)));
+    }
+
+    @Test
+    void basicStat() {
+        InetSocketAddress sender = sender(1);
+        ByteBuf response = query(sender, 0x00, SESSION_ID, handshake(sender));
+        assertNotNull(response);
+        assertEquals(0x00, response.readByte());
+        assertEquals(SESSION_ID, response.readInt());
+        assertEquals("A Velocity Server", readString(response));
+        assertEquals("SMP", readString(response));
+        assertEquals("Velocity", readString(response));
+        assertEquals("2", readString(response));
+        assertEquals("500", readString(response));
+        assertEquals(BIND.getPort(), response.readShortLE());
+        assertEquals(BIND.getHostString(), readString(response));
+        assertFalse(response.isReadable());
+        response.release();
+    }
+
+    @Test
+    void fullStat() {
+        InetSocketAddress sender = sender(1);
+        ByteBuf response = query(sender, 0x00, SESSION_ID, handshake(sender), 0);
+        assertNotNull(response);
+        assertEquals(0x00, response.readByte());
+        assertEquals(SESSION_ID, response.readInt());
+        response.skipBytes(11);
+
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String key; !(key = readString(response)).isEmpty(); ) {
+            values.put(key, readString(response));
+        }
+        assertEquals("A Velocity Server", values.get("hostname"));
+        assertEquals("MINECRAFT", values.get("game_id"));
+        assertEquals(ProtocolConstants.SUPPORTED_GENERIC_VERSION_STRING, values.get("version"));
+        assertEquals("2", values.get("numplayers"));
+        assertEquals("500", values.get("maxplayers"));
+        assertEquals(Integer.toString(BIND.getPort()), values.get("hostport"));
+
+        response.skipBytes(10);
+        List<String> players = new ArrayList<>();
+        for (String player; !(player = readString(response)).isEmpty(); ) {
+            players.add(player);
+        }
+        assertEquals(ImmutableList.of("tuxed", "Notch"), players);
+        assertFalse(response.isReadable());
+        response.release();
+    }
+
+    @Test
+    void rejectsForgedToken() {
+        InetSocketAddress sender = sender(1);
+        int token = handshake(sender);
+        assertNull(query(sender, 0x00, SESSION_ID, token + 1));
+        // Tokens are bound to the address they were handed out to.
+        assertNull(query(sender(2), 0x00, SESSION_ID, token));
+    }
+
+    @Test
+    void acceptsTokenFromPreviousPeriodOnly() {
+        int first = handshake(sender(1));
+        int second = handshake(sender(2));
+
+        clock.addAndGet(TOKEN_PERIOD_MILLIS);
+        ByteBuf response = query(sender(1), 0x00, SESSION_ID, first);
+        assertNotNull(response);
+        response.release();
+
+        clock.addAndGet(TOKEN_PERIOD_MILLIS);
+        assertNull(query(sender(2), 0x00, SESSION_ID, second));
+    }
+
+    @Test
+    void ratelimitsEachAddress() {
+        handshake(sender(1));
+        assertNull(query(sender(1), 0x09, SESSION_ID));
+        // Other addresses aren't affected.
+        int token = handshake(sender(2));
+
+        ByteBuf response = query(sender(2), 0x00, SESSION_ID, token);
+        assertNotNull(response);
+        response.release();
+        assertNull(query(sender(2), 0x00, SESSION_ID, token));
+    }
+
+    @Test
+    void ratelimitCanBeDisabled() {
+        channel = createChannel(RESPONSE_REFRESH_MILLIS, 0);
+        int token = handshake(sender(1));
+        assertEquals(token, handshake(sender(1)));
+        for (int i = 0; i < 3; i++) {
+            ByteBuf response = query(sender(1), 0x00, SESSION_ID, token);
+            assertNotNull(response);
+            response.release();
+        }
+    }
+
+    @Test
+    void reusesResponsesWithinRefreshInterval() {
+        for (InetSocketAddress sender : new InetSocketAddress[] { sender(1), sender(2) }) {
+            ByteBuf response = query(sender, 0x00, SESSION_ID, handshake(sender));
+            assertNotNull(response);
+            response.release();
+        }
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void rebuildsEveryResponseWithoutRefreshInterval() {
+        channel = createChannel(0, REQUEST_INTERVAL_MILLIS);
+        for (InetSocketAddress sender : new InetSocketAddress[] { sender(1), sender(2) }) {
+            ByteBuf response = query(sender, 0x00, SESSION_ID, handshake(sender));
+            assertNotNull(response);
+            response.release();
+        }
+        assertEquals(2, builds.get());
+    }
+
+    private int handshake(InetSocketAddress sender) {
+        ByteBuf response = query(sender, 0x09, SESSION_ID);
+        assertNotNull(response);
+        response.skipBytes(5);
+        int token = Integer.parseInt(readString(response));
+        response.release();
+        return token;
+    }
+
+    private ByteBuf query(InetSocketAddress sender, int type, int sessionId, int... payload) {
+        ByteBuf request = Unpooled.buffer();
+        request.writeByte(0xFE);
+        request.writeByte(0xFD);
+        request.writeByte(type);
+        request.writeInt(sessionId);
+        for (int value : payload) {
+            request.writeInt(value);
+        }
+        channel.writeInbound(new DatagramPacket(request, PROXY, sender));
+
+        DatagramPacket response = channel.readOutbound();
+        if (response == null) {
+            return null;
+        }
+        assertEquals(sender, response.recipient());
+        assertNull(channel.readOutbound());
+        return response.content();
+    }
+
+    private static InetSocketAddress sender(int host) {
+        return new InetSocketAddress("10.0.0." + host, 12345);
+    }
+
+    private static String readString(ByteBuf buf) {
+        int end = buf.indexOf(buf.readerIndex(), buf.writerIndex(), (byte) 0);
+        assertNotEquals(-1, end);
+        String string = buf.toString(buf.readerIndex(), end - buf.readerIndex(), StandardCharsets.ISO_8859_1);
+        buf.readerIndex(end + 1);
+        return string;
+    }
+}
@@ -0,0 +1,161 @@
+package com.velocitypowered.proxy.protocol.netty;
+
+import com.google.common.base.Strings;
+import com.velocitypowered.natives.compression.JavaVelocityCompressor;
+import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.proxy.protocol.MinecraftPacket;
+import com.velocitypowered.proxy.protocol.ProtocolConstants;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import com.velocitypowered.proxy.protocol.packet.Chat;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeaderSpaceTest {
+    private static final int PROTOCOL_VERSION = ProtocolConstants.MINECRAFT_1_12_2;
+    private static final int THRESHOLD = 256;
+
+    @Test
+    void prependsVarIntsOfEverySize() {
+        // The largest and smallest value of each varint size up to 3 bytes.
+        int[] values = { 0, 127, 128, 16383, 16384, 2097151 };
+        int[] sizes = { 1, 1, 2, 2, 3, 3 };
+        for (int i = 0; i < values.length; i++) {
+            ByteBuf buf = HeaderSpace.reserve(Unpooled.buffer());
+            buf.writeBytes(new byte[] { 1, 2, 3 });
+            assertTrue(HeaderSpace.canPrepend(buf, sizes[i]));
+            HeaderSpace.prependVarInt(buf, values[i]);
+            assertEquals(HeaderSpace.RESERVED - sizes[i], buf.readerIndex());
+
+            ByteBuf expected = Unpooled.buffer();
+            ProtocolUtils.writeVarInt(expected, values[i]);
+            assertEquals(sizes[i], expected.readableBytes());
+            expected.writeBytes(new byte[] { 1, 2, 3 });
+            assertTrue(ByteBufUtil.equals(expected, buf), "Mismatch for " + values[i]);
+            buf.release();
+            expected.release();
+        }
+    }
+
+    @Test
+    void onlyPrependsToExclusiveBuffers() {
+        ByteBuf buf = HeaderSpace.reserve(Unpooled.buffer());
+        buf.writeByte(1);
+        assertTrue(HeaderSpace.canPrepend(buf, HeaderSpace.RESERVED));
+        assertFalse(HeaderSpace.canPrepend(buf, HeaderSpace.RESERVED + 1));
+
+        // Derived buffers share their memory with the buffer they came from.
+        assertFalse(HeaderSpace.canPrepend(buf.slice(0, buf.writerIndex()).readerIndex(HeaderSpace.RESERVED), 1));
+        assertFalse(HeaderSpace.canPrepend(buf.duplicate(), 1));
+        assertFalse(HeaderSpace.canPrepend(buf.asReadOnly(), 1));
+
+        buf.retain();
+        assertFalse(HeaderSpace.canPrepend(buf, 1));
+        buf.release();
+        assertTrue(HeaderSpace.canPrepend(buf, 1));
+
+        ByteBuf composite = Unpooled.compositeBuffer()
+                .addComponent(true, Unpooled.buffer().writeZero(HeaderSpace.RESERVED))
+                .addComponent(true, Unpooled.buffer().writeByte(1));
+        composite.readerIndex(HeaderSpace.RESERVED);
+        assertFalse(HeaderSpace.canPrepend(composite, 1));
+        composite.release();
+        buf.release();
+    }
+
+    @Test
+    void framesUncompressedPacketLikeSeparateHeaders() {
+        EmbeddedChannel channel = new EmbeddedChannel(MinecraftVarintLengthEncoder.INSTANCE, createEncoder());
+        Chat chat = new Chat("{\"text\":\"hi\"}", Chat.CHAT);
+        assertTrue(channel.writeOutbound(chat));
+
+        ByteBuf body = encodeBody(chat);
+        ByteBuf expected = Unpooled.buffer();
+        ProtocolUtils.writeVarInt(expected, body.readableBytes());
+        expected.writeBytes(body);
+        assertFramed(expected, channel);
+        body.release();
+    }
+
+    @Test
+    void framesCompressedPacketsLikeSeparateHeaders() throws Exception {
+        // One packet under the threshold, and one over it with a three byte uncompressed size.
+        assertCompressedFraming(new Chat("{\"text\":\"hi\"}", Chat.CHAT));
+        assertCompressedFraming(new Chat("{\"text\":\"" + Strings.repeat("Velocity ", 2000) + "\"}", Chat.CHAT));
+    }
+
+    @Test
+    void framesDerivedBuffersWithSeparateLength() {
+        EmbeddedChannel channel = new EmbeddedChannel(MinecraftVarintLengthEncoder.INSTANCE);
+        ByteBuf packet = Unpooled.buffer().writeBytes(new byte[200]);
+        ByteBuf expected = Unpooled.buffer();
+        ProtocolUtils.writeVarInt(expected, 200);
+        expected.writeBytes(new byte[200]);
+
+        assertTrue(channel.writeOutbound(packet.retainedDuplicate()));
+        // The duplicate written out shares this reference count.
+        packet.release();
+        assertFramed(expected, channel);
+    }
+
+    private static void assertCompressedFraming(Chat chat) throws Exception {
+        VelocityCompressor compressor = JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION);
+        EmbeddedChannel channel = new EmbeddedChannel(MinecraftVarintLengthEncoder.INSTANCE,
+                new MinecraftCompressEncoder(THRESHOLD, compressor), createEncoder());
+        assertTrue(channel.writeOutbound(chat));
+
+        // What the encoders used to produce: the size and the length each written into a buffer of their own.
+        ByteBuf body = encodeBody(chat);
+        ByteBuf compressed = Unpooled.buffer();
+        if (body.readableBytes() <= THRESHOLD) {
+            ProtocolUtils.writeVarInt(compressed, 0);
+            compressed.writeBytes(body);
+        } else {
+            ProtocolUtils.writeVarInt(compressed, body.readableBytes());
+            VelocityCompressor reference = JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION);
+            reference.deflate(body, compressed);
+            reference.dispose();
+        }
+        ByteBuf expected = Unpooled.buffer();
+        ProtocolUtils.writeVarInt(expected, compressed.readableBytes());
+        expected.writeBytes(compressed);
+        assertFramed(expected, channel);
+        body.release();
+        compressed.release();
+    }
+
+    private static void assertFramed(ByteBuf expected, EmbeddedChannel channel) {
+        ByteBuf actual = Unpooled.buffer();
+        for (ByteBuf buf; (buf = channel.readOutbound()) != null; ) {
+            actual.writeBytes(buf);
+            buf.release();
+            assertEquals(0, buf.refCnt());
+        }
+        assertTrue(ByteBufUtil.equals(expected, actual), "Expected " + ByteBufUtil.hexDump(expected) + " but got "
+                + ByteBufUtil.hexDump(actual));
+        expected.release();
+        actual.release();
+        assertFalse(channel.finish());
+    }
+
+    private static MinecraftEncoder createEncoder() {
+        MinecraftEncoder encoder = new MinecraftEncoder(ProtocolConstants.Direction.CLIENTBOUND);
+        encoder.setState(StateRegistry.PLAY);
+        encoder.setProtocolVersion(PROTOCOL_VERSION);
+        return encoder;
+    }
+
+    private static ByteBuf encodeBody(MinecraftPacket packet) {
+        ByteBuf body = Unpooled.buffer();
+        ProtocolUtils.writeVarInt(body, StateRegistry.PLAY.CLIENTBOUND.getVersion(PROTOCOL_VERSION).getPacketId(packet));
+        packet.encode(body, ProtocolConstants.Direction.CLIENTBOUND, PROTOCOL_VERSION);
+        return body;
+    }
+}
@@ -0,0 +1,165 @@
+package com.velocitypowered.proxy.protocol.netty;
+
+import com.velocitypowered.natives.compression.JavaVelocityCompressor;
+import com.velocitypowered.proxy.protocol.ProtocolConstants;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinecraftCompressDecoderTest {
+    private static final int THRESHOLD = 256;
+
+    @Test
+    void stripsSizeFromFrameUnderThreshold() {
+        EmbeddedChannel channel = createChannel(false);
+        ByteBuf packet = packet(firstId(true), 16);
+        ByteBuf frame = uncompressedFrame(packet);
+        assertTrue(channel.writeInbound(frame));
+
+        ByteBuf decoded = channel.readInbound();
+        assertTrue(ByteBufUtil.equals(packet, decoded));
+        decoded.release();
+        assertEquals(0, frame.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void relaysUndecodableFrameUnderThreshold() {
+        EmbeddedChannel channel = createChannel(true);
+        ByteBuf frame = uncompressedFrame(packet(firstId(false), 16));
+        ByteBuf expected = frame.copy();
+        assertTrue(channel.writeInbound(frame));
+
+        CompressedFrame relayed = channel.readInbound();
+        assertTrue(ByteBufUtil.equals(expected, relayed.content()));
+        relayed.release();
+        assertEquals(0, frame.refCnt());
+        expected.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void relaysCompressedUndecodableFrameUntouched() {
+        EmbeddedChannel channel = createChannel(true);
+        ByteBuf frame = compressedFrame(packet(firstId(false), THRESHOLD * 4));
+        ByteBuf expected = frame.copy();
+        assertTrue(channel.writeInbound(frame));
+
+        CompressedFrame relayed = channel.readInbound();
+        assertTrue(ByteBufUtil.equals(expected, relayed.content()));
+        relayed.release();
+        assertEquals(0, frame.refCnt());
+        expected.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void inflatesCompressedDecodableFrame() {
+        EmbeddedChannel channel = createChannel(true);
+        ByteBuf packet = packet(firstId(true), THRESHOLD * 4);
+        ByteBuf frame = compressedFrame(packet);
+        assertTrue(channel.writeInbound(frame));
+
+        ByteBuf decoded = channel.readInbound();
+        assertTrue(ByteBufUtil.equals(packet, decoded));
+        decoded.release();
+        assertEquals(0, decoded.refCnt());
+        assertEquals(0, frame.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void inflatesEverythingWithoutPassthrough() {
+        EmbeddedChannel channel = createChannel(false);
+        ByteBuf packet = packet(firstId(false), THRESHOLD * 4);
+        ByteBuf frame = compressedFrame(packet);
+        assertTrue(channel.writeInbound(frame));
+
+        ByteBuf decoded = channel.readInbound();
+        assertTrue(ByteBufUtil.equals(packet, decoded));
+        decoded.release();
+        assertEquals(0, frame.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void encoderWritesCompressedFrameAsIs() {
+        EmbeddedChannel channel = new EmbeddedChannel(new MinecraftCompressEncoder(THRESHOLD,
+                JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION)));
+        ByteBuf content = compressedFrame(packet(firstId(false), THRESHOLD * 4));
+        ByteBuf expected = content.copy();
+        assertTrue(channel.writeOutbound(new CompressedFrame(content)));
+
+        ByteBuf written = channel.readOutbound();
+        assertTrue(ByteBufUtil.equals(expected, written));
+        written.release();
+        assertEquals(0, content.refCnt());
+        expected.release();
+        assertFalse(channel.finish());
+    }
+
+    private static EmbeddedChannel createChannel(boolean passthrough) {
+        MinecraftCompressDecoder decoder = new MinecraftCompressDecoder(THRESHOLD,
+                JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION));
+        if (passthrough) {
+            decoder.enablePassthrough(playDecoder());
+        }
+        return new EmbeddedChannel(decoder);
+    }
+
+    private static MinecraftDecoder playDecoder() {
+        MinecraftDecoder decoder = new MinecraftDecoder(ProtocolConstants.Direction.CLIENTBOUND);
+        decoder.setState(StateRegistry.PLAY);
+        decoder.setProtocolVersion(ProtocolConstants.MINECRAFT_1_12_2);
+        return decoder;
+    }
+
+    private static int firstId(boolean decodable) {
+        StateRegistry.PacketRegistry.ProtocolVersion version = playDecoder().getProtocolVersion();
+        for (int id = 0; id < 0x80; id++) {
+            if (version.isDecodable(id) == decodable) {
+                return id;
+            }
+        }
+        throw new AssertionError("No " + (decodable ? "decodable" : "undecodable") + " packet ID");
+    }
+
+    private static ByteBuf packet(int id, int payloadSize) {
+        ByteBuf packet = Unpooled.buffer();
+        ProtocolUtils.writeVarInt(packet, id);
+        for (int i = 0; i < payloadSize; i++) {
+            packet.writeByte(i % 7);
+        }
+        return packet;
+    }
+
+    private static ByteBuf uncompressedFrame(ByteBuf packet) {
+        ByteBuf frame = Unpooled.buffer();
+        ProtocolUtils.writeVarInt(frame, 0);
+        frame.writeBytes(packet, packet.readerIndex(), packet.readableBytes());
+        return frame;
+    }
+
+    private static ByteBuf compressedFrame(ByteBuf packet) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(ByteBufUtil.getBytes(packet));
+        deflater.finish();
+        byte[] compressed = new byte[packet.readableBytes() + 64];
+        int length = deflater.deflate(compressed);
+        assertTrue(deflater.finished());
+        deflater.end();
+
+        ByteBuf frame = Unpooled.buffer();
+        ProtocolUtils.writeVarInt(frame, packet.readableBytes());
+        frame.writeBytes(compressed, 0, length);
+        return frame;
+    }
+}
@@ -0,0 +1,63 @@
+package com.velocitypowered.proxy.protocol.netty;
+
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinecraftVarintFrameDecoderTest {
+
+    @Test
+    void decodesFramesSplitAcrossReads() {
+        EmbeddedChannel channel = new EmbeddedChannel(new MinecraftVarintFrameDecoder());
+        // A 200 byte frame has a two byte length.
+        assertFalse(channel.writeInbound(Unpooled.wrappedBuffer(new byte[] { (byte) 0xC8 })));
+        assertFalse(channel.writeInbound(Unpooled.wrappedBuffer(new byte[] { 0x01, 0x00 })));
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(new byte[199])));
+
+        ByteBuf frame = channel.readInbound();
+        assertEquals(200, frame.readableBytes());
+        frame.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void decodesMultipleFramesInOneRead() {
+        EmbeddedChannel channel = new EmbeddedChannel(new MinecraftVarintFrameDecoder());
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(new byte[] { 0x01, 0x05, 0x02, 0x06, 0x07 })));
+
+        ByteBuf first = channel.readInbound();
+        assertEquals(0x05, first.readByte());
+        first.release();
+        ByteBuf second = channel.readInbound();
+        assertEquals(2, second.readableBytes());
+        second.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void rejectsFramesOverStateLimit() {
+        MinecraftVarintFrameDecoder decoder = new MinecraftVarintFrameDecoder(16, 32, 64);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        assertThrows(DecoderException.class, () -> channel.writeInbound(Unpooled.wrappedBuffer(new byte[] { 17 })));
+        channel.finishAndReleaseAll();
+
+        decoder = new MinecraftVarintFrameDecoder(16, 32, 64);
+        decoder.setState(StateRegistry.PLAY);
+        EmbeddedChannel playChannel = new EmbeddedChannel(decoder);
+        assertFalse(playChannel.writeInbound(Unpooled.wrappedBuffer(new byte[] { 64 })));
+        playChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    void rejectsOverlongLengths() {
+        EmbeddedChannel channel = new EmbeddedChannel(new MinecraftVarintFrameDecoder());
+        assertThrows(DecoderException.class, () -> channel.writeInbound(Unpooled.wrappedBuffer(
+                new byte[] { (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01 })));
+        channel.finishAndReleaseAll();
+    }
+}
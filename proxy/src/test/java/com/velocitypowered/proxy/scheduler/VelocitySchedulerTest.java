@@ -2,11 +2,18 @@ package com.velocitypowered.proxy.scheduler;
 
 import com.velocitypowered.api.scheduler.ScheduledTask;
 import com.velocitypowered.api.scheduler.TaskStatus;
+import com.velocitypowered.api.util.GameProfile;
+import com.velocitypowered.proxy.connection.MinecraftConnection;
+import com.velocitypowered.proxy.connection.client.ConnectedPlayer;
 import com.velocitypowered.proxy.testutil.FakePluginManager;
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,7 +23,7 @@ class VelocitySchedulerTest {
 
     @Test
     void buildTask() throws Exception {
-        VelocityScheduler scheduler = new VelocityScheduler(new FakePluginManager(), Sleeper.SYSTEM);
+        VelocityScheduler scheduler = new VelocityScheduler(new FakePluginManager());
         CountDownLatch latch = new CountDownLatch(1);
         ScheduledTask task = scheduler.buildTask(FakePluginManager.PLUGIN_A, latch::countDown).schedule();
         latch.await();
@@ -25,7 +32,7 @@ class VelocitySchedulerTest {
 
     @Test
     void cancelWorks() throws Exception {
-        VelocityScheduler scheduler = new VelocityScheduler(new FakePluginManager(), Sleeper.SYSTEM);
+        VelocityScheduler scheduler = new VelocityScheduler(new FakePluginManager());
         AtomicInteger i = new AtomicInteger(3);
         ScheduledTask task = scheduler.buildTask(FakePluginManager.PLUGIN_A, i::decrementAndGet)
                 .delay(100, TimeUnit.SECONDS)
@@ -38,7 +45,7 @@ class VelocitySchedulerTest {
 
     @Test
     void repeatTaskWorks() throws Exception {
-        VelocityScheduler scheduler = new VelocityScheduler(new FakePluginManager(), Sleeper.SYSTEM);
+        VelocityScheduler scheduler = new VelocityScheduler(new FakePluginManager());
         CountDownLatch latch = new CountDownLatch(3);
         ScheduledTask task = scheduler.buildTask(FakePluginManager.PLUGIN_A, latch::countDown)
                 .delay(100, TimeUnit.MILLISECONDS)
@@ -48,4 +55,75 @@ class VelocitySchedulerTest {
         task.cancel();
     }
 
-}
\ No newline at end of file
+    @Test
+    void repeatingTasksShareThreads() throws Exception {
+        long threadsBefore = countSchedulerThreads();
+        VelocityScheduler scheduler = new VelocityScheduler(new FakePluginManager());
+        int tasks = 10_000;
+        CountDownLatch latch = new CountDownLatch(tasks);
+        List<ScheduledTask> scheduled = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            AtomicBoolean ran = new AtomicBoolean();
+            Runnable runnable = () -> {
+                if (ran.compareAndSet(false, true)) {
+                    latch.countDown();
+                }
+            };
+            scheduled.add(scheduler.buildTask(FakePluginManager.PLUGIN_A, runnable)
+                    .delay(10, TimeUnit.MILLISECONDS)
+                    .repeat(50, TimeUnit.MILLISECONDS)
+                    .schedule());
+        }
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        // Other tests' schedulers may still have idle threads around, so only count the ones this scheduler added:
+        // its workers and the timer thread.
+        long added = countSchedulerThreads() - threadsBefore;
+        assertTrue(added <= VelocityScheduler.MAX_WORKER_THREADS + 1, "Expected a bounded number of threads, found " + added);
+
+        for (ScheduledTask task : scheduled) {
+            task.cancel();
+            assertEquals(TaskStatus.CANCELLED, task.status());
+        }
+        assertTrue(scheduler.shutdown());
+    }
+
+    @Test
+    void affinityTasksRunOnPlayerEventLoop() throws Exception {
+        VelocityScheduler scheduler = new VelocityScheduler(new FakePluginManager());
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ConnectedPlayer player = new ConnectedPlayer(GameProfile.forOfflinePlayer("tuxed"), new MinecraftConnection(channel),
+                null);
+
+        AtomicInteger runs = new AtomicInteger();
+        ScheduledTask once = scheduler.buildTask(FakePluginManager.PLUGIN_A, runs::incrementAndGet)
+                .affinity(player)
+                .schedule();
+        assertEquals(0, runs.get());
+        channel.runPendingTasks();
+        assertEquals(1, runs.get());
+        assertEquals(TaskStatus.FINISHED, once.status());
+
+        ScheduledTask repeating = scheduler.buildTask(FakePluginManager.PLUGIN_A, runs::incrementAndGet)
+                .affinity(player)
+                .delay(1, TimeUnit.MILLISECONDS)
+                .repeat(1, TimeUnit.MILLISECONDS)
+                .schedule();
+        Thread.sleep(10);
+        channel.runScheduledPendingTasks();
+        assertEquals(2, runs.get());
+
+        channel.close();
+        channel.runPendingTasks();
+        assertEquals(TaskStatus.CANCELLED, repeating.status());
+        Thread.sleep(10);
+        channel.runScheduledPendingTasks();
+        assertEquals(2, runs.get());
+    }
+
+    private static long countSchedulerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("Velocity Task Scheduler"))
+                .count();
+    }
+}
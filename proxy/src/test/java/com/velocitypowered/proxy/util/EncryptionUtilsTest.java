@@ -2,9 +2,12 @@ package com.velocitypowered.proxy.util;
 
 import org.junit.jupiter.api.Test;
 
+import javax.crypto.Cipher;
 import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
 import java.security.MessageDigest;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class EncryptionUtilsTest {
@@ -17,6 +20,26 @@ class EncryptionUtilsTest {
         assertEquals("-7c9d5b0044c130109a5d7b5fb5c317c02b4e28c1", jebHash);
     }
 
+    @Test
+    void decryptRsaReusesCipher() throws Exception {
+        KeyPair keyPair = EncryptionUtils.createRsaKeyPair(1024);
+        Cipher cipher = Cipher.getInstance("RSA");
+        cipher.init(Cipher.ENCRYPT_MODE, keyPair.getPublic());
+        byte[] first = "first".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second".getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(first, EncryptionUtils.decryptRsa(keyPair, cipher.doFinal(first)));
+        assertArrayEquals(second, EncryptionUtils.decryptRsa(keyPair, cipher.doFinal(second)));
+    }
+
+    @Test
+    void generateServerIdIsRepeatable() {
+        KeyPair keyPair = EncryptionUtils.createRsaKeyPair(1024);
+        byte[] secret = "secret".getBytes(StandardCharsets.UTF_8);
+        // The digest is reused, so a second hash must not include anything from the first.
+        assertEquals(EncryptionUtils.generateServerId(secret, keyPair.getPublic()),
+                EncryptionUtils.generateServerId(secret, keyPair.getPublic()));
+    }
+
     private String mojangLoginSha1(String str) throws Exception {
         MessageDigest digest = MessageDigest.getInstance("SHA-1");
         digest.update(str.getBytes(StandardCharsets.UTF_8));